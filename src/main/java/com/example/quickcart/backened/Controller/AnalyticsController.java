@@ -0,0 +1,20 @@
+package com.example.quickcart.backened.Controller;
+
+import com.example.quickcart.backened.dto.CartAnalyticsSnapshot;
+import com.example.quickcart.backened.service.CartAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AnalyticsController {
+    private final CartAnalyticsService cartAnalyticsService;
+
+    @GetMapping("/carts")
+    public ResponseEntity<CartAnalyticsSnapshot> getCartAnalytics() {
+        return ResponseEntity.ok(cartAnalyticsService.getSnapshot());
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.quickcart.backened.Controller;
 
 import com.example.quickcart.backened.dto.AddToCartRequest;
+import com.example.quickcart.backened.dto.MessageResponse;
 import com.example.quickcart.backened.dto.RemoveFromCartRequest;
 import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.service.AdmissionControlService;
 import com.example.quickcart.backened.service.CartService;
 import com.example.quickcart.backened.service.SseEmitterService;
+import com.example.quickcart.backened.store.CartConflictException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
@@ -15,30 +21,75 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 @RequestMapping("/api/cart")
 @CrossOrigin(origins = "http://localhost:5173")
 public class CartController {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final CartService cartService;
     private final SseEmitterService sseService;
+    private final AdmissionControlService admissionControlService;
 
     @PutMapping("/add")
     public ResponseEntity<Cart> addToCart(@RequestBody AddToCartRequest request) {
+        if (!admissionControlService.tryAdmitSession(request.getSessionId())) {
+            return createTooManyRequestsResponse();
+        }
         return createOkResponse(cartService.addToCart(request));
     }
 
     @DeleteMapping("/remove")
     public ResponseEntity<Cart> removeFromCart(@RequestBody RemoveFromCartRequest request) {
+        if (!admissionControlService.tryAdmitSession(request.getSessionId())) {
+            return createTooManyRequestsResponse();
+        }
         return createOkResponse(cartService.removeFromCart(request));
     }
 
     @GetMapping("/{sessionId}")
-    public ResponseEntity<Cart> getCart(@PathVariable String sessionId) {
+    public ResponseEntity<Cart> getCart(@PathVariable String sessionId, WebRequest webRequest) {
+        if (!admissionControlService.tryAdmitSession(sessionId)) {
+            return createTooManyRequestsResponse();
+        }
+        String knownEtag = cartService.getKnownCartEtag(sessionId);
+        if (knownEtag != null && webRequest.checkNotModified(knownEtag)) {
+            return createNotModifiedResponse(knownEtag);
+        }
         return createOkResponse(cartService.getCart(sessionId));
     }
 
     @GetMapping("/stream/{sessionId}")
-    public SseEmitter streamCartUpdates(@PathVariable String sessionId) {
-        return sseService.createEmitter(sessionId);
+    public ResponseEntity<SseEmitter> streamCartUpdates(@PathVariable String sessionId) {
+        if (!admissionControlService.tryAdmitSession(sessionId)) {
+            return createTooManyRequestsResponse();
+        }
+        return sseService.createEmitter(sessionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> {
+                    admissionControlService.recordEmitterLimitRejection();
+                    return createTooManyRequestsResponse();
+                });
+    }
+
+    // Only reached once CartService has run out of retries
+    @ExceptionHandler(CartConflictException.class)
+    public ResponseEntity<MessageResponse> handleCartConflict(CartConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MessageResponse(e.getMessage()));
     }
 
     private ResponseEntity<Cart> createOkResponse(Cart cart) {
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok()
+                .eTag(cartService.getCartEtag(cart))
+                .body(cart);
+    }
+
+    private ResponseEntity<Cart> createNotModifiedResponse(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .build();
+    }
+
+    private <T> ResponseEntity<T> createTooManyRequestsResponse() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.quickcart.backened.Controller;
+
+import com.example.quickcart.backened.dto.MessageResponse;
+import com.example.quickcart.backened.resilience.DependencyUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class DependencyExceptionHandler {
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<MessageResponse> handleDependencyUnavailable(DependencyUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(new MessageResponse(e.getMessage()));
+    }
+}
@@ -3,10 +3,15 @@ package com.example.quickcart.backened.Controller;
 import com.example.quickcart.backened.model.Product;
 import com.example.quickcart.backened.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequiredArgsConstructor
@@ -15,16 +20,27 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
 
+    @Value("${catalog.cache.max-age-seconds:30}")
+    private long catalogMaxAgeSeconds;
+
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest webRequest) {
+        String catalogEtag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(catalogEtag)) {
+            return createNotModifiedResponse(catalogEtag);
+        }
         List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return createCatalogResponse(catalogEtag).body(products);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
+    public ResponseEntity<Product> getProductById(@PathVariable String id, WebRequest webRequest) {
+        String catalogEtag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(catalogEtag)) {
+            return createNotModifiedResponse(catalogEtag);
+        }
         return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> createCatalogResponse(catalogEtag).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -33,4 +49,23 @@ public class ProductController {
         Product savedProduct = productService.createProduct(product);
         return ResponseEntity.ok(savedProduct);
     }
+
+    private ResponseEntity.BodyBuilder createCatalogResponse(String catalogEtag) {
+        return ResponseEntity.ok()
+                .eTag(catalogEtag)
+                .cacheControl(catalogCacheControl());
+    }
+
+    private <T> ResponseEntity<T> createNotModifiedResponse(String catalogEtag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(catalogEtag)
+                .cacheControl(catalogCacheControl())
+                .build();
+    }
+
+    private CacheControl catalogCacheControl() {
+        return CacheControl.maxAge(catalogMaxAgeSeconds, TimeUnit.SECONDS)
+                .cachePublic()
+                .mustRevalidate();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.quickcart.backened.Controller;
+
+import com.example.quickcart.backened.dto.MessageResponse;
+import com.example.quickcart.backened.dto.RepricingJobStatus;
+import com.example.quickcart.backened.dto.RepricingRequest;
+import com.example.quickcart.backened.service.CartRepricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/repricing")
+@CrossOrigin(origins = "http://localhost:5173")
+public class RepricingController {
+    private final CartRepricingService cartRepricingService;
+
+    @PostMapping
+    public ResponseEntity<?> startRepricing(@RequestBody RepricingRequest request) {
+        if (request.getProductIds() == null || request.getProductIds().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!cartRepricingService.isSupported()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MessageResponse("Repricing requires the Mongo cart store"));
+        }
+        return cartRepricingService.startRepricing(request.getProductIds())
+                .<ResponseEntity<?>>map(status -> ResponseEntity.status(HttpStatus.ACCEPTED).body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new MessageResponse("A repricing job is already running")));
+    }
+
+    @GetMapping
+    public ResponseEntity<RepricingJobStatus> getRepricingStatus() {
+        return cartRepricingService.getStatus()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.quickcart.backened;
 
 import com.example.quickcart.backened.model.Product;
 import com.example.quickcart.backened.repository.ProductRepository;
+import com.example.quickcart.backened.service.ProductService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.CommandLineRunner;
@@ -21,7 +22,7 @@ public class QuickCartApplication {
     }
 
     @Bean
-    CommandLineRunner initProducts(ProductRepository productRepo, ObjectMapper objectMapper) {
+    CommandLineRunner initProducts(ProductRepository productRepo, ProductService productService, ObjectMapper objectMapper) {
         return args -> {
             long productCount = productRepo.count();
             System.out.println("📦 Found " + productCount + " products in DB");
@@ -33,6 +34,7 @@ public class QuickCartApplication {
             }
 
             loadProductsFromJson(productRepo, objectMapper);
+            productService.markCatalogChanged();
         };
     }
 
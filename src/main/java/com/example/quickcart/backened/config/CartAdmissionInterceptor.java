@@ -0,0 +1,59 @@
+package com.example.quickcart.backened.config;
+
+import com.example.quickcart.backened.service.AdmissionControlService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+@RequiredArgsConstructor
+public class CartAdmissionInterceptor implements HandlerInterceptor {
+    private static final String ADMITTED_ATTRIBUTE = CartAdmissionInterceptor.class.getName() + ".ADMITTED";
+    private static final String STREAM_PATH_PREFIX = "/api/cart/stream/";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdmissionControlService admissionControlService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // A completing SseEmitter re-dispatches the request; it was admitted on the first pass
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (!admissionControlService.tryAdmitClient(request.getRemoteAddr())) {
+            return reject(response, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        // SSE streams hold no Mongo connection and are capped per session in SseEmitterService
+        if (isStreamRequest(request)) {
+            return true;
+        }
+        if (!admissionControlService.tryEnterRequest()) {
+            return reject(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) != null) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
+            admissionControlService.exitRequest();
+        }
+    }
+
+    private boolean isStreamRequest(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + STREAM_PATH_PREFIX);
+    }
+
+    private boolean reject(HttpServletResponse response, HttpStatus status) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.quickcart.backened.config;
+
+import com.example.quickcart.backened.repository.CartRepository;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import com.example.quickcart.backened.store.CartStore;
+import com.example.quickcart.backened.store.CartWriteThroughQueue;
+import com.example.quickcart.backened.store.MongoCartStore;
+import com.example.quickcart.backened.store.OffHeapCartStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Configuration
+public class CartStoreConfig {
+    private static final String OFF_HEAP_STORE = "offheap";
+
+    @Value("${cart.store.type:mongo}")
+    private String storeType;
+
+    @Value("${cart.store.offheap.shards:16}")
+    private int offHeapShards;
+
+    @Value("${cart.store.offheap.max-entries:1000000}")
+    private int offHeapMaxEntries;
+
+    @Value("${cart.store.offheap.max-bytes:536870912}")
+    private long offHeapMaxBytes;
+
+    @Value("${cart.store.offheap.write-through-to-mongo:true}")
+    private boolean writeThroughToMongo;
+
+    @Value("${cart.store.offheap.write-queue-capacity:10000}")
+    private int writeQueueCapacity;
+
+    @Value("${cart.store.offheap.max-pending-writes:100000}")
+    private int maxPendingWrites;
+
+    @Value("${cart.store.offheap.write-retry-interval-ms:5000}")
+    private long writeRetryIntervalMs;
+
+    @Bean
+    public CartStore cartStore(CartRepository cartRepo, MongoTemplate mongoTemplate, DependencyGuards dependencyGuards,
+                               MeterRegistry meterRegistry) {
+        MongoCartStore mongoStore = new MongoCartStore(cartRepo, mongoTemplate, dependencyGuards);
+        if (!OFF_HEAP_STORE.equalsIgnoreCase(storeType)) {
+            return mongoStore;
+        }
+        CartWriteThroughQueue writeThrough = writeThroughToMongo
+                ? new CartWriteThroughQueue(mongoStore, writeQueueCapacity, maxPendingWrites, writeRetryIntervalMs, meterRegistry)
+                : null;
+        return new OffHeapCartStore(offHeapShards, offHeapMaxEntries, offHeapMaxBytes, writeThrough, meterRegistry);
+    }
+}
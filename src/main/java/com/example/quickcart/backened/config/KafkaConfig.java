@@ -2,12 +2,20 @@
 package com.example.quickcart.backened.config;
 
 import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.kafka.CartUpdateEventDeserializer;
+import com.example.quickcart.backened.kafka.CartUpdateEventSerializer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -17,10 +25,57 @@ import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
+    private static final String CART_UPDATES_TOPIC = "cart-updates";
+    private static final String JSON_CODEC = "json";
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${kafka.cart-updates.codec:json}")
+    private String cartUpdatesCodec;
+
+    @Value("${spring.kafka.consumer.group-id:cart-group}")
+    private String cartUpdatesGroupId;
+
+    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
+    private String cartUpdatesAutoOffsetReset;
+
+    @Value("${kafka.cart-updates.partitions:3}")
+    private int cartUpdatesPartitions;
+
+    @Value("${kafka.cart-updates.replicas:1}")
+    private int cartUpdatesReplicas;
+
+    @Value("${kafka.cart-updates.listener.concurrency:${kafka.cart-updates.partitions:3}}")
+    private int cartUpdatesConcurrency;
+
+    @Value("${kafka.cart-updates.listener.max-poll-records:500}")
+    private int cartUpdatesMaxPollRecords;
+
+    @Value("${analytics.cart.max-poll-records:500}")
+    private int analyticsMaxPollRecords;
+
+    @Value("${kafka.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${kafka.producer.batch-size:32768}")
+    private int producerBatchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String producerCompressionType;
+
+    @Value("${kafka.producer.enable-idempotence:true}")
+    private boolean producerIdempotence;
+
+    @Value("${kafka.producer.max-block-ms:1000}")
+    private int producerMaxBlockMs;
+
+    @Value("${kafka.producer.request-timeout-ms:5000}")
+    private int producerRequestTimeoutMs;
+
+    @Value("${kafka.producer.delivery-timeout-ms:15000}")
+    private int producerDeliveryTimeoutMs;
+
     @Bean
     public ProducerFactory<String, CartUpdateEvent> producerFactory() {
         return new DefaultKafkaProducerFactory<>(kafkaProperties());
@@ -31,11 +86,66 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    @Bean
+    public NewTopic cartUpdatesTopic() {
+        return TopicBuilder.name(CART_UPDATES_TOPIC)
+                .partitions(cartUpdatesPartitions)
+                .replicas(cartUpdatesReplicas)
+                .build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CartUpdateEvent> cartUpdatesListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CartUpdateEvent> factory = batchListenerContainerFactory(
+                cartUpdateConsumerProperties(cartUpdatesAutoOffsetReset, cartUpdatesMaxPollRecords));
+        factory.setConcurrency(cartUpdatesConcurrency);
+        factory.getContainerProperties().setGroupId(cartUpdatesGroupId);
+        return factory;
+    }
+
+    // Analytics only cares about live traffic, so a new group starts at the head of the topic
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CartUpdateEvent> cartAnalyticsListenerContainerFactory() {
+        return batchListenerContainerFactory(cartUpdateConsumerProperties("latest", analyticsMaxPollRecords));
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, CartUpdateEvent> batchListenerContainerFactory(
+            Map<String, Object> consumerProperties) {
+        ConcurrentKafkaListenerContainerFactory<String, CartUpdateEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProperties));
+        factory.setBatchListener(true);
+        return factory;
+    }
+
     private Map<String, Object> kafkaProperties() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, cartUpdateSerializerClass());
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompressionType);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producerIdempotence);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMs);
+        props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, producerRequestTimeoutMs);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producerDeliveryTimeoutMs);
+        if (producerIdempotence) {
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+        }
+        return props;
+    }
+
+    private Map<String, Object> cartUpdateConsumerProperties(String autoOffsetReset, int maxPollRecords) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, CartUpdateEventDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         return props;
     }
+
+    private Class<?> cartUpdateSerializerClass() {
+        return JSON_CODEC.equalsIgnoreCase(cartUpdatesCodec) ? JsonSerializer.class : CartUpdateEventSerializer.class;
+    }
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.example.quickcart.backened.config;
 
+import com.mongodb.MongoClientSettings;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableMongoRepositories(basePackages = "com.example.quickcart.backened.repository")
 public class MongoConfig extends AbstractMongoClientConfiguration {
@@ -12,8 +15,32 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.database:quickcart}")
     private String databaseName;
 
+    @Value("${resilience.mongo.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${resilience.mongo.read-timeout-ms:3000}")
+    private int readTimeoutMs;
+
+    @Value("${resilience.mongo.server-selection-timeout-ms:2000}")
+    private long serverSelectionTimeoutMs;
+
+    @Value("${resilience.mongo.pool-max-wait-ms:1000}")
+    private long poolMaxWaitMs;
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
     }
+
+    // Driver defaults wait up to 30s for server selection, which would pin request threads during an outage
+    @Override
+    protected void configureClientSettings(MongoClientSettings.Builder builder) {
+        builder.applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS));
+    }
 }
\ No newline at end of file
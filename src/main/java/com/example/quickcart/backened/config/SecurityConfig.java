@@ -24,6 +24,8 @@ public class SecurityConfig {
     private static final String AUTH_ENDPOINTS = "/api/auth/**";
     private static final String PRODUCTS_ENDPOINT = "/api/products/**";
     private static final String CART_ENDPOINTS = "/api/cart/**";
+    private static final String ADMIN_ENDPOINTS = "/api/admin/**";
+    private static final String ADMIN_ROLE = "ADMIN";
     private static final String LOGIN_PAGE = "/login";
     private static final String DEFAULT_SUCCESS_URL = "/home";
     private static final String LOCALHOST_PATTERN = "http://localhost:*";
@@ -48,6 +50,7 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers(AUTH_ENDPOINTS, PRODUCTS_ENDPOINT, CART_ENDPOINTS).permitAll()
+                        .requestMatchers(ADMIN_ENDPOINTS).hasRole(ADMIN_ROLE)
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -1,12 +1,18 @@
 package com.example.quickcart.backened.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+    private static final String CART_PATH_PATTERN = "/api/cart/**";
+
+    private final CartAdmissionInterceptor cartAdmissionInterceptor;
 
     @Value("${cors.allowed-origins:http://localhost:5173}")
     private String allowedOrigins;
@@ -24,4 +30,10 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods(allowedMethods)
                 .allowCredentials(true);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(cartAdmissionInterceptor)
+                .addPathPatterns(CART_PATH_PATTERN);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.quickcart.backened.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartAnalyticsSnapshot {
+    private Instant asOf;
+    private WindowStats currentWindow; // tumbling window still in progress
+    private WindowStats previousWindow; // last completed tumbling window
+    private WindowStats slidingWindow;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WindowStats {
+        private Instant windowStart;
+        private Instant windowEnd;
+        private long itemsAdded;
+        private long itemsRemoved;
+        private int activeCarts;
+        private Map<String, Long> cartValueDistribution;
+        private List<ProductActivity> topProducts;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductActivity {
+        private String productId;
+        private long added;
+        private long removed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.quickcart.backened.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepricingJobStatus {
+    private String jobId;
+    private String state;
+    private int productCount;
+    private long totalCarts;
+    private long cartsScanned;
+    private long cartsRepriced;
+    private long conflicts;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package com.example.quickcart.backened.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepricingRequest {
+    private Set<String> productIds;
+}
@@ -0,0 +1,33 @@
+package com.example.quickcart.backened.journal;
+
+public enum CartEventType {
+    ITEM_ADDED(1),
+    QUANTITY_INCREASED(2),
+    QUANTITY_DECREASED(3),
+    ITEM_REMOVED(4);
+
+    private static final CartEventType[] BY_CODE = new CartEventType[5];
+
+    static {
+        for (CartEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    CartEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static CartEventType fromCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown cart event type: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
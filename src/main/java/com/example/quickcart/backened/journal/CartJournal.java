@@ -0,0 +1,192 @@
+package com.example.quickcart.backened.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of cart mutations.
+ * <p>
+ * Request threads claim a preallocated slot in a bounded lock-free ring and fill it in place; a
+ * single writer thread drains the ring into fixed-size records in memory-mapped segment files.
+ * Neither side allocates per event. When the ring is full the event is dropped and counted rather
+ * than blocking the request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartJournal {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${journal.directory:./data/cart-journal}")
+    private String directory;
+
+    @Value("${journal.records-per-segment:524288}")
+    private int recordsPerSegment;
+
+    @Value("${journal.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${journal.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    private Slot[] slots;
+    private AtomicLongArray slotSequences;
+    private int mask;
+    private final AtomicLong claimCursor = new AtomicLong();
+    private long drainCursor;
+
+    private CartJournalSegmentWriter segmentWriter;
+    private Thread writerThread;
+    private volatile boolean running;
+    private Counter appendedRecords;
+    private Counter droppedRecords;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(queueCapacity, 2) - 1) << 1;
+        slots = new Slot[capacity];
+        slotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            slotSequences.set(i, i);
+        }
+        mask = capacity - 1;
+
+        segmentWriter = new CartJournalSegmentWriter(Path.of(directory), recordsPerSegment);
+        segmentWriter.open();
+        appendedRecords = meterRegistry.counter("cart.journal.records", "outcome", "appended");
+        droppedRecords = meterRegistry.counter("cart.journal.records", "outcome", "dropped");
+
+        running = true;
+        writerThread = new Thread(this::drainLoop, "cart-journal-writer");
+        writerThread.start();
+        log.info("Cart journal open at {} (next offset {})", directory, segmentWriter.getNextSequence());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean append(CartEventType type, String sessionId, long cartVersion, String productId, int quantity,
+                          double priceAtAdd) {
+        if (!running) {
+            return false;
+        }
+        if (!CartJournalFormat.isEncodable(sessionId, productId)) {
+            droppedRecords.increment();
+            return false;
+        }
+
+        long claim = claimCursor.get();
+        while (true) {
+            int index = (int) (claim & mask);
+            long available = slotSequences.get(index) - claim;
+            if (available == 0) {
+                if (claimCursor.compareAndSet(claim, claim + 1)) {
+                    slots[index].fill(System.currentTimeMillis(), type, sessionId, cartVersion, productId, quantity, priceAtAdd);
+                    slotSequences.set(index, claim + 1);
+                    return true;
+                }
+                claim = claimCursor.get();
+            } else if (available < 0) {
+                droppedRecords.increment();
+                return false;
+            } else {
+                claim = claimCursor.get();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        long lastForceNanos = System.nanoTime();
+        while (running || hasPending()) {
+            int drained = drain();
+            long now = System.nanoTime();
+            if (now - lastForceNanos >= TimeUnit.MILLISECONDS.toNanos(forceIntervalMs)) {
+                segmentWriter.force();
+                lastForceNanos = now;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        segmentWriter.force();
+    }
+
+    private boolean hasPending() {
+        return slotSequences.get((int) (drainCursor & mask)) == drainCursor + 1;
+    }
+
+    private int drain() {
+        int drained = 0;
+        while (hasPending()) {
+            int index = (int) (drainCursor & mask);
+            Slot slot = slots[index];
+            try {
+                segmentWriter.append(slot.timestampMillis, slot.type, slot.sessionId, slot.cartVersion, slot.productId,
+                        slot.quantity, slot.priceAtAdd);
+                appendedRecords.increment();
+            } catch (IOException | RuntimeException e) {
+                droppedRecords.increment();
+                log.error("Failed to append cart journal record", e);
+            }
+            slot.clear();
+            slotSequences.set(index, drainCursor + mask + 1);
+            drainCursor++;
+            drained++;
+        }
+        return drained;
+    }
+
+    private static final class Slot {
+        private long timestampMillis;
+        private CartEventType type;
+        private String sessionId;
+        private long cartVersion;
+        private String productId;
+        private int quantity;
+        private double priceAtAdd;
+
+        void fill(long timestampMillis, CartEventType type, String sessionId, long cartVersion, String productId,
+                  int quantity, double priceAtAdd) {
+            this.timestampMillis = timestampMillis;
+            this.type = type;
+            this.sessionId = sessionId;
+            this.cartVersion = cartVersion;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.priceAtAdd = priceAtAdd;
+        }
+
+        void clear() {
+            sessionId = null;
+            productId = null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.quickcart.backened.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Fixed 128-byte record layout shared by the journal writer and reader.
+ * <pre>
+ *   0  int    commit marker (written last, 0 means the slot is empty)
+ *   4  byte   event type
+ *   5  byte   sessionId length
+ *   6  byte   productId length
+ *   8  long   sequence
+ *  16  long   timestamp millis
+ *  24  int    quantity after the mutation
+ *  28  double priceAtAdd
+ *  36  long   cart version after the mutation
+ *  44  52B    sessionId (ASCII)
+ *  96  32B    productId (ASCII)
+ * </pre>
+ * Segment files are named after the sequence of their first record. The commit marker doubles as
+ * the layout version: records from an older layout read as uncommitted rather than misparsed.
+ */
+final class CartJournalFormat {
+    static final int RECORD_SIZE = 128;
+    static final int COMMIT_MARKER = 0xCA57_0002;
+    static final int MAX_SESSION_ID_LENGTH = 52;
+    static final int MAX_PRODUCT_ID_LENGTH = 32;
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int TYPE_OFFSET = 4;
+    private static final int SESSION_LENGTH_OFFSET = 5;
+    private static final int PRODUCT_LENGTH_OFFSET = 6;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int TIMESTAMP_OFFSET = 16;
+    private static final int QUANTITY_OFFSET = 24;
+    private static final int PRICE_OFFSET = 28;
+    private static final int CART_VERSION_OFFSET = 36;
+    private static final int SESSION_ID_OFFSET = 44;
+    private static final int PRODUCT_ID_OFFSET = 96;
+
+    private CartJournalFormat() {
+    }
+
+    static boolean isEncodable(String sessionId, String productId) {
+        return isAscii(sessionId, MAX_SESSION_ID_LENGTH) && isAscii(productId, MAX_PRODUCT_ID_LENGTH);
+    }
+
+    static void write(ByteBuffer buffer, int position, long sequence, long timestampMillis, CartEventType type,
+                      String sessionId, long cartVersion, String productId, int quantity, double priceAtAdd) {
+        buffer.put(position + TYPE_OFFSET, type.getCode());
+        buffer.put(position + SESSION_LENGTH_OFFSET, (byte) sessionId.length());
+        buffer.put(position + PRODUCT_LENGTH_OFFSET, (byte) productId.length());
+        buffer.putLong(position + SEQUENCE_OFFSET, sequence);
+        buffer.putLong(position + TIMESTAMP_OFFSET, timestampMillis);
+        buffer.putInt(position + QUANTITY_OFFSET, quantity);
+        buffer.putDouble(position + PRICE_OFFSET, priceAtAdd);
+        buffer.putLong(position + CART_VERSION_OFFSET, cartVersion);
+        putAscii(buffer, position + SESSION_ID_OFFSET, sessionId);
+        putAscii(buffer, position + PRODUCT_ID_OFFSET, productId);
+        buffer.putInt(position, COMMIT_MARKER);
+    }
+
+    static boolean isCommitted(ByteBuffer buffer, int position) {
+        return buffer.getInt(position) == COMMIT_MARKER;
+    }
+
+    static void read(ByteBuffer buffer, int position, CartJournalRecord record) {
+        record.setType(CartEventType.fromCode(buffer.get(position + TYPE_OFFSET)));
+        record.setSequence(buffer.getLong(position + SEQUENCE_OFFSET));
+        record.setTimestampMillis(buffer.getLong(position + TIMESTAMP_OFFSET));
+        record.setQuantity(buffer.getInt(position + QUANTITY_OFFSET));
+        record.setPriceAtAdd(buffer.getDouble(position + PRICE_OFFSET));
+        record.setCartVersion(buffer.getLong(position + CART_VERSION_OFFSET));
+        record.setSessionId(getAscii(buffer, position + SESSION_ID_OFFSET, buffer.get(position + SESSION_LENGTH_OFFSET)));
+        record.setProductId(getAscii(buffer, position + PRODUCT_ID_OFFSET, buffer.get(position + PRODUCT_LENGTH_OFFSET)));
+    }
+
+    static String segmentFileName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequenceOf(Path segment) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static boolean isAscii(String value, int maxLength) {
+        if (value == null || value.length() > maxLength) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putAscii(ByteBuffer buffer, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put(position + i, (byte) value.charAt(i));
+        }
+    }
+
+    private static String getAscii(ByteBuffer buffer, int position, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) buffer.get(position + i);
+        }
+        return new String(chars);
+    }
+}
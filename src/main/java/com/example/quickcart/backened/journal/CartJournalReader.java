@@ -0,0 +1,54 @@
+package com.example.quickcart.backened.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CartJournalReader {
+    private final Path directory;
+
+    public CartJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Visits every committed record with an offset of at least {@code fromOffset}, oldest first.
+     *
+     * @return the offset following the last record visited
+     */
+    public long read(long fromOffset, Consumer<CartJournalRecord> consumer) throws IOException {
+        List<Path> segments = CartJournalSegments.list(directory);
+        CartJournalRecord record = new CartJournalRecord();
+        long nextOffset = fromOffset;
+
+        for (int i = 0; i < segments.size(); i++) {
+            long firstSequence = CartJournalFormat.firstSequenceOf(segments.get(i));
+            boolean hasLaterSegment = i + 1 < segments.size();
+            if (hasLaterSegment && CartJournalFormat.firstSequenceOf(segments.get(i + 1)) <= fromOffset) {
+                continue;
+            }
+
+            MappedByteBuffer segment = mapReadOnly(segments.get(i));
+            long skip = Math.max(0, fromOffset - firstSequence);
+            for (long position = skip * CartJournalFormat.RECORD_SIZE;
+                 position + CartJournalFormat.RECORD_SIZE <= segment.capacity()
+                         && CartJournalFormat.isCommitted(segment, (int) position);
+                 position += CartJournalFormat.RECORD_SIZE) {
+                CartJournalFormat.read(segment, (int) position, record);
+                consumer.accept(record);
+                nextOffset = record.getSequence() + 1;
+            }
+        }
+        return nextOffset;
+    }
+
+    private MappedByteBuffer mapReadOnly(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
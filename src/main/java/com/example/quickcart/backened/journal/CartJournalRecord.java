@@ -0,0 +1,16 @@
+package com.example.quickcart.backened.journal;
+
+import lombok.Data;
+
+// Reused by CartJournalReader for every record it visits; copy the values out if they must outlive the callback
+@Data
+public class CartJournalRecord {
+    private long sequence;
+    private long timestampMillis;
+    private CartEventType type;
+    private String sessionId;
+    private long cartVersion; // version of the cart the mutation was saved as
+    private String productId;
+    private int quantity; // quantity after the mutation, 0 when the item was removed
+    private double priceAtAdd;
+}
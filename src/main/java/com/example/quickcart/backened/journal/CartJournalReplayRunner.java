@@ -0,0 +1,39 @@
+package com.example.quickcart.backened.journal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Run with --journal.replay.mode=rebuild|refeed [--journal.replay.from-offset=N]
+@Component
+@ConditionalOnProperty(name = "journal.replay.mode")
+@RequiredArgsConstructor
+@Slf4j
+public class CartJournalReplayRunner implements CommandLineRunner {
+    private static final String REBUILD_MODE = "rebuild";
+    private static final String REFEED_MODE = "refeed";
+
+    private final CartJournalReplayer replayer;
+
+    @Value("${journal.replay.mode}")
+    private String mode;
+
+    @Value("${journal.replay.from-offset:0}")
+    private long fromOffset;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (REBUILD_MODE.equalsIgnoreCase(mode)) {
+            long restored = replayer.restoreCarts(fromOffset);
+            log.info("Rebuilt {} carts with journaled changes from offset {}", restored, fromOffset);
+        } else if (REFEED_MODE.equalsIgnoreCase(mode)) {
+            long published = replayer.refeedCartUpdates(fromOffset);
+            log.info("Re-fed {} cart updates from cart journal offset {}", published, fromOffset);
+        } else {
+            throw new IllegalArgumentException("Unknown journal.replay.mode: " + mode);
+        }
+    }
+}
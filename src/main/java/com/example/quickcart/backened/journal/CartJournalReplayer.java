@@ -0,0 +1,124 @@
+package com.example.quickcart.backened.journal;
+
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.service.CartUpdatePublisher;
+import com.example.quickcart.backened.store.CartConflictException;
+import com.example.quickcart.backened.store.CartStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replays journal records onto the carts in {@link CartStore}.
+ * <p>
+ * Each session starts from its stored cart, not an empty one, so replaying from any offset yields
+ * complete carts. Records carry the absolute quantity and price of the line they touched and the
+ * cart version the mutation was saved as, and only records newer than the stored version are
+ * applied: the rest are already reflected in it, and applying them would undo later changes such
+ * as a repricing, which is not journaled. A cart the journal has nothing new for is left as stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartJournalReplayer {
+    private final CartStore cartStore;
+    private final CartUpdatePublisher cartUpdatePublisher;
+
+    @Value("${journal.directory:./data/cart-journal}")
+    private String directory;
+
+    // Saves carts the journal has changes for that the store has not seen; returns how many were saved
+    public long restoreCarts(long fromOffset) throws IOException {
+        long restored = 0;
+        for (ReplayedCart replayed : replay(fromOffset).values()) {
+            if (!replayed.changed) {
+                continue;
+            }
+            try {
+                cartStore.save(replayed.cart, replayed.storedVersion);
+                restored++;
+            } catch (CartConflictException e) {
+                // Saved by a shopper since it was read, so the stored cart is newer than the replay
+                log.info("Left cart {} as stored: it changed during replay", replayed.cart.getId());
+            }
+        }
+        return restored;
+    }
+
+    // Publishes one full snapshot per session touched since the offset
+    public long refeedCartUpdates(long fromOffset) throws IOException {
+        long published = 0;
+        for (ReplayedCart replayed : replay(fromOffset).values()) {
+            if (replayed.stored || replayed.changed) {
+                cartUpdatePublisher.publish(replayed.cart.getId(), replayed.cart);
+                published++;
+            }
+        }
+        return published;
+    }
+
+    private Map<String, ReplayedCart> replay(long fromOffset) throws IOException {
+        Map<String, ReplayedCart> carts = new LinkedHashMap<>();
+        new CartJournalReader(Path.of(directory)).read(fromOffset, record ->
+                carts.computeIfAbsent(record.getSessionId(), this::loadCart).apply(record));
+        return carts;
+    }
+
+    private ReplayedCart loadCart(String sessionId) {
+        return cartStore.findById(sessionId)
+                .map(cart -> new ReplayedCart(cart, true))
+                .orElseGet(() -> new ReplayedCart(new Cart(sessionId, new ArrayList<>(), 0.0, Instant.EPOCH, 0L), false));
+    }
+
+    private static final class ReplayedCart {
+        private final Cart cart;
+        private final boolean stored;
+        private final long storedVersion;
+        private boolean changed;
+
+        ReplayedCart(Cart cart, boolean stored) {
+            this.cart = cart;
+            this.stored = stored;
+            this.storedVersion = cart.getVersion();
+            if (cart.getItems() == null) {
+                cart.setItems(new ArrayList<>());
+            }
+        }
+
+        void apply(CartJournalRecord record) {
+            if (record.getCartVersion() <= storedVersion) {
+                return;
+            }
+            Cart.CartItem existing = cart.getItems().stream()
+                    .filter(item -> item.getProductId().equals(record.getProductId()))
+                    .findFirst()
+                    .orElse(null);
+            if (record.getType() == CartEventType.ITEM_REMOVED || record.getQuantity() <= 0) {
+                cart.getItems().remove(existing);
+            } else if (existing != null) {
+                existing.setQuantity(record.getQuantity());
+                existing.setPriceAtAdd(record.getPriceAtAdd());
+            } else {
+                cart.getItems().add(new Cart.CartItem(record.getProductId(), record.getQuantity(), record.getPriceAtAdd()));
+            }
+            cart.setTotalAmount(cart.getItems().stream()
+                    .mapToDouble(item -> item.getPriceAtAdd() * item.getQuantity())
+                    .sum());
+            Instant recordedAt = Instant.ofEpochMilli(record.getTimestampMillis());
+            if (cart.getLastUpdated() == null || recordedAt.isAfter(cart.getLastUpdated())) {
+                cart.setLastUpdated(recordedAt);
+            }
+            // Ends on the journaled version, so replaying the same records again finds nothing new
+            cart.setVersion(Math.max(cart.getVersion(), record.getCartVersion()));
+            changed = true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.quickcart.backened.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Owned by the journal writer thread; not thread-safe
+final class CartJournalSegmentWriter {
+    private final Path directory;
+    private final int segmentBytes;
+
+    private MappedByteBuffer segment;
+    private int position;
+    private long nextSequence;
+
+    CartJournalSegmentWriter(Path directory, int recordsPerSegment) {
+        this.directory = directory;
+        this.segmentBytes = recordsPerSegment * CartJournalFormat.RECORD_SIZE;
+    }
+
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = CartJournalSegments.list(directory);
+        if (segments.isEmpty()) {
+            mapSegment(0);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long firstSequence = CartJournalFormat.firstSequenceOf(last);
+        // A segment written under a larger size setting is resumed at its own size
+        segment = map(last, Math.max(Files.size(last), segmentBytes));
+        position = 0;
+        while (position < segment.capacity() && CartJournalFormat.isCommitted(segment, position)) {
+            position += CartJournalFormat.RECORD_SIZE;
+        }
+        nextSequence = firstSequence + position / CartJournalFormat.RECORD_SIZE;
+    }
+
+    long append(long timestampMillis, CartEventType type, String sessionId, long cartVersion, String productId,
+                int quantity, double priceAtAdd) throws IOException {
+        if (position + CartJournalFormat.RECORD_SIZE > segment.capacity()) {
+            segment.force();
+            mapSegment(nextSequence);
+        }
+        long sequence = nextSequence++;
+        CartJournalFormat.write(segment, position, sequence, timestampMillis, type, sessionId, cartVersion, productId,
+                quantity, priceAtAdd);
+        position += CartJournalFormat.RECORD_SIZE;
+        return sequence;
+    }
+
+    void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    private void mapSegment(long firstSequence) throws IOException {
+        segment = map(directory.resolve(CartJournalFormat.segmentFileName(firstSequence)), segmentBytes);
+        position = 0;
+        nextSequence = firstSequence;
+    }
+
+    private MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
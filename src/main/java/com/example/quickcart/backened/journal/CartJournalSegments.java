@@ -0,0 +1,26 @@
+package com.example.quickcart.backened.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class CartJournalSegments {
+
+    private CartJournalSegments() {
+    }
+
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(CartJournalFormat.SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(CartJournalFormat::firstSequenceOf))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.quickcart.backened.kafka;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary wire format for {@link CartUpdateEvent}.
+ * <p>
+ * Layout (schema version 2): magic byte, schema version byte, sessionId, cart-present flag and,
+ * when present, cart id, version, lastUpdated (presence flag, then epoch millis), total and the
+ * items. Strings are varint length + UTF-8 and integers are zig-zag varints. An amount that is a
+ * whole number of hundredths is written as an even varint of twice its minor units; any other
+ * amount is written as an odd marker followed by its raw IEEE 754 bits, so every double survives
+ * the round trip exactly. {@link #encodeCart(Cart)} writes the same cart layout behind just the
+ * schema version byte. Version 1 payloads (lastUpdated always present, amounts always in minor
+ * units) are still read.
+ */
+public final class CartUpdateEventCodec {
+    public static final byte MAGIC = (byte) 0xC7;
+    public static final byte SCHEMA_VERSION = 2;
+    private static final byte MINOR_UNITS_SCHEMA_VERSION = 1;
+
+    private static final int MONEY_SCALE = 100;
+    private static final long MAX_TAGGED_MINOR_UNITS = 1L << 61;
+    private static final int MAX_INTERNED_PRODUCT_IDS = 10_000;
+    private static final Map<String, String> PRODUCT_IDS = new ConcurrentHashMap<>();
+
+    private CartUpdateEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(CartUpdateEvent event) {
+        Writer writer = new Writer();
+        writer.writeByte(MAGIC);
+        writer.writeByte(SCHEMA_VERSION);
+        writer.writeString(event.getSessionId());
+
+        Cart cart = event.getCart();
+        writer.writeByte(cart == null ? 0 : 1);
+        if (cart != null) {
+            writeCart(writer, cart);
+        }
+        return writer.toByteArray();
+    }
+
+    public static CartUpdateEvent decode(byte[] data) {
+        Reader reader = new Reader(data);
+        if (reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary cart update event");
+        }
+        byte schemaVersion = readSchemaVersion(reader);
+
+        String sessionId = reader.readString();
+        Cart cart = reader.readByte() == 0 ? null : readCart(reader, schemaVersion);
+        return new CartUpdateEvent(sessionId, cart);
+    }
+
+    public static byte[] encodeCart(Cart cart) {
+        Writer writer = new Writer();
+        writer.writeByte(SCHEMA_VERSION);
+        writeCart(writer, cart);
+        return writer.toByteArray();
+    }
+
+    public static Cart decodeCart(byte[] data) {
+        Reader reader = new Reader(data);
+        return readCart(reader, readSchemaVersion(reader));
+    }
+
+    // Reads just far enough into an encodeCart payload to order two encodings of the same cart
+    public static long decodeCartVersion(byte[] data) {
+        Reader reader = new Reader(data);
+        readSchemaVersion(reader);
+        reader.readString();
+        return reader.readVarLong();
+    }
+
+    private static byte readSchemaVersion(Reader reader) {
+        byte schemaVersion = reader.readByte();
+        if (schemaVersion != SCHEMA_VERSION && schemaVersion != MINOR_UNITS_SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported cart schema version: " + schemaVersion);
+        }
+        return schemaVersion;
+    }
+
+    private static void writeCart(Writer writer, Cart cart) {
+        writer.writeString(cart.getId());
+        writer.writeVarLong(cart.getVersion());
+        writer.writeByte(cart.getLastUpdated() == null ? 0 : 1);
+        if (cart.getLastUpdated() != null) {
+            writer.writeVarLong(cart.getLastUpdated().toEpochMilli());
+        }
+        writeAmount(writer, cart.getTotalAmount());
+
+        List<Cart.CartItem> items = cart.getItems() == null ? List.of() : cart.getItems();
+        writer.writeVarLong(items.size());
+        for (Cart.CartItem item : items) {
+            writer.writeString(item.getProductId());
+            writer.writeVarLong(item.getQuantity());
+            writeAmount(writer, item.getPriceAtAdd());
+        }
+    }
+
+    private static Cart readCart(Reader reader, byte schemaVersion) {
+        Cart cart = new Cart();
+        cart.setId(reader.readString());
+        cart.setVersion(reader.readVarLong());
+        boolean hasLastUpdated = schemaVersion == MINOR_UNITS_SCHEMA_VERSION || reader.readByte() != 0;
+        cart.setLastUpdated(hasLastUpdated ? Instant.ofEpochMilli(reader.readVarLong()) : null);
+        cart.setTotalAmount(readAmount(reader, schemaVersion));
+
+        int itemCount = reader.readCount();
+        List<Cart.CartItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String productId = internProductId(reader.readString());
+            int quantity = (int) reader.readVarLong();
+            double priceAtAdd = readAmount(reader, schemaVersion);
+            items.add(new Cart.CartItem(productId, quantity, priceAtAdd));
+        }
+        cart.setItems(items);
+        return cart;
+    }
+
+    private static void writeAmount(Writer writer, double amount) {
+        long minorUnits = Math.round(amount * MONEY_SCALE);
+        boolean exact = Math.abs(minorUnits) < MAX_TAGGED_MINOR_UNITS
+                && Double.doubleToLongBits(fromMinorUnits(minorUnits)) == Double.doubleToLongBits(amount);
+        if (exact) {
+            writer.writeVarLong(minorUnits << 1);
+        } else {
+            writer.writeVarLong(1);
+            writer.writeFixedLong(Double.doubleToRawLongBits(amount));
+        }
+    }
+
+    private static double readAmount(Reader reader, byte schemaVersion) {
+        long value = reader.readVarLong();
+        if (schemaVersion == MINOR_UNITS_SCHEMA_VERSION) {
+            return fromMinorUnits(value);
+        }
+        return (value & 1) == 0 ? fromMinorUnits(value >> 1) : Double.longBitsToDouble(reader.readFixedLong());
+    }
+
+    private static double fromMinorUnits(long minorUnits) {
+        return (double) minorUnits / MONEY_SCALE;
+    }
+
+    private static String internProductId(String productId) {
+        if (productId == null) {
+            return null;
+        }
+        String interned = PRODUCT_IDS.get(productId);
+        if (interned != null) {
+            return interned;
+        }
+        if (PRODUCT_IDS.size() >= MAX_INTERNED_PRODUCT_IDS) {
+            return productId;
+        }
+        interned = PRODUCT_IDS.putIfAbsent(productId, productId);
+        return interned != null ? interned : productId;
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigZag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            buffer[position++] = (byte) zigZag;
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        // Length is written as -1 for null so absent ids stay distinguishable from empty ones
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated cart update event");
+            }
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in cart update event");
+        }
+
+        long readFixedLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                value |= (long) (readByte() & 0xFF) << shift;
+            }
+            return value;
+        }
+
+        // Every counted element takes at least one byte, so a count beyond the remaining bytes is corrupt
+        int readCount() {
+            long count = readVarLong();
+            if (count < 0 || count > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid element count in cart update event: " + count);
+            }
+            return (int) count;
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid string length in cart update event: " + length);
+            }
+            String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
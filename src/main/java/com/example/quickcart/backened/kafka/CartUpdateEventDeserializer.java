@@ -0,0 +1,37 @@
+package com.example.quickcart.backened.kafka;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads both the binary {@link CartUpdateEventCodec} format and the JSON payloads written by
+ * {@link org.springframework.kafka.support.serializer.JsonSerializer}, so either producer codec
+ * can be live on the topic while a rollout is in progress.
+ */
+public class CartUpdateEventDeserializer implements Deserializer<CartUpdateEvent> {
+    private final JsonDeserializer<CartUpdateEvent> jsonDeserializer =
+            new JsonDeserializer<>(CartUpdateEvent.class, false);
+
+    @Override
+    public CartUpdateEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (CartUpdateEventCodec.isBinary(data)) {
+            return CartUpdateEventCodec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public CartUpdateEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.quickcart.backened.kafka;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class CartUpdateEventSerializer implements Serializer<CartUpdateEvent> {
+
+    @Override
+    public byte[] serialize(String topic, CartUpdateEvent event) {
+        return event == null ? null : CartUpdateEventCodec.encode(event);
+    }
+}
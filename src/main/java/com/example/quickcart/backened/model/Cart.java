@@ -20,6 +20,7 @@ public class Cart {
     private List<CartItem> items = new ArrayList<>();
     private double totalAmount = 0.0;
     private Instant lastUpdated = Instant.now();
+    private long version = 0L;
 
     @Data
     @NoArgsConstructor
@@ -0,0 +1,196 @@
+package com.example.quickcart.backened.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore bulkhead plus circuit breaker for one downstream dependency.
+ * <p>
+ * The circuit opens after {@code failureThreshold} consecutive failures, rejects calls for
+ * {@code openDuration}, then lets a single trial call through; its outcome closes or reopens it.
+ * Calls that cannot get a bulkhead permit are rejected immediately instead of queueing. Only
+ * errors the {@code dependencyFailure} predicate attributes to the dependency count as failures;
+ * anything else, such as a mapping or validation bug, is rethrown without touching the circuit.
+ */
+@Slf4j
+public class DependencyGuard {
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private enum Permission { DENIED, CALL, TRIAL }
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Predicate<Throwable> dependencyFailure;
+    private final MeterRegistry meterRegistry;
+
+    private final Semaphore bulkhead;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean halfOpenTrialInFlight = new AtomicBoolean();
+    private volatile long openedAtNanos;
+
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    private final Counter failures;
+
+    public DependencyGuard(String name, int maxConcurrentCalls, int failureThreshold, Duration openDuration,
+                           Predicate<Throwable> dependencyFailure, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.dependencyFailure = dependencyFailure;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+
+        this.circuitOpenRejections = rejectionCounter("circuit_open");
+        this.bulkheadRejections = rejectionCounter("bulkhead_full");
+        this.failures = Counter.builder("dependency.guard.failures")
+                .tag("dependency", name)
+                .register(meterRegistry);
+        Gauge.builder("dependency.guard.state", state, s -> s.get().ordinal())
+                .tag("dependency", name)
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(meterRegistry);
+        Gauge.builder("dependency.guard.in-flight", bulkhead, b -> this.maxConcurrentCalls - b.availablePermits())
+                .tag("dependency", name)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> operation) {
+        boolean trial = acquirePermit() == Permission.TRIAL;
+        try {
+            T result = operation.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            onError(e);
+            throw e;
+        } finally {
+            // Also covers Errors, so an aborted trial can never leave the half-open circuit stuck
+            if (trial) {
+                halfOpenTrialInFlight.set(false);
+            }
+            release();
+        }
+    }
+
+    public void run(Runnable operation) {
+        call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Callers that complete asynchronously pair acquire() with exactly one onSuccess()/onError() and one release()
+    public void acquire() {
+        acquirePermit();
+    }
+
+    public void release() {
+        bulkhead.release();
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.CLOSED);
+        }
+        halfOpenTrialInFlight.set(false);
+    }
+
+    public void onError(Throwable error) {
+        if (dependencyFailure.test(error)) {
+            onFailure();
+        } else {
+            halfOpenTrialInFlight.set(false);
+        }
+    }
+
+    public void onFailure() {
+        failures.increment();
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            transition(State.CLOSED, State.OPEN);
+        }
+        halfOpenTrialInFlight.set(false);
+    }
+
+    public boolean isCallPermitted() {
+        State current = state.get();
+        return current != State.OPEN || System.nanoTime() - openedAtNanos >= openDurationNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private Permission acquirePermit() {
+        Permission permission = acquireCircuitPermission();
+        if (permission == Permission.DENIED) {
+            circuitOpenRejections.increment();
+            throw new DependencyUnavailableException(name, "circuit open");
+        }
+        if (!bulkhead.tryAcquire()) {
+            if (permission == Permission.TRIAL) {
+                halfOpenTrialInFlight.set(false);
+            }
+            bulkheadRejections.increment();
+            throw new DependencyUnavailableException(name, "bulkhead full");
+        }
+        return permission;
+    }
+
+    private Permission acquireCircuitPermission() {
+        if (state.get() == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return Permission.CALL;
+        }
+        return current == State.HALF_OPEN && halfOpenTrialInFlight.compareAndSet(false, true)
+                ? Permission.TRIAL
+                : Permission.DENIED;
+    }
+
+    private void transition(State from, State to) {
+        // Stamp before publishing OPEN so no reader can pair the new state with a stale timestamp
+        if (to == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (!state.compareAndSet(from, to)) {
+            return;
+        }
+        if (to == State.CLOSED) {
+            consecutiveFailures.set(0);
+        }
+        meterRegistry.counter("dependency.guard.transitions", "dependency", name, "to", to.name()).increment();
+        log.warn("Circuit for {} moved from {} to {}", name, from, to);
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder("dependency.guard.rejections")
+                .tag("dependency", name)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.quickcart.backened.resilience;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@RequiredArgsConstructor
+public class DependencyGuards {
+    // Connectivity and timeout errors, raw or as translated by Spring; duplicate keys, mapping and
+    // query bugs mean Mongo answered, so they never count against the circuit
+    private static final List<Class<? extends Throwable>> MONGO_FAILURES = List.of(
+            DataAccessResourceFailureException.class, TransientDataAccessException.class,
+            MongoSocketException.class, MongoTimeoutException.class, MongoExecutionTimeoutException.class,
+            MongoNotPrimaryException.class, MongoNodeIsRecoveringException.class);
+
+    // Broker-side and network errors the client would retry; serialization and record-size errors are ours
+    private static final List<Class<? extends Throwable>> KAFKA_FAILURES = List.of(
+            RetriableException.class, TimeoutException.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${resilience.mongo.max-concurrent-calls:50}")
+    private int mongoMaxConcurrentCalls;
+
+    @Value("${resilience.mongo.failure-threshold:5}")
+    private int mongoFailureThreshold;
+
+    @Value("${resilience.mongo.open-duration-ms:5000}")
+    private long mongoOpenDurationMs;
+
+    @Value("${resilience.mongo-batch.max-concurrent-calls:4}")
+    private int mongoBatchMaxConcurrentCalls;
+
+    @Value("${resilience.mongo-batch.failure-threshold:3}")
+    private int mongoBatchFailureThreshold;
+
+    @Value("${resilience.mongo-batch.open-duration-ms:30000}")
+    private long mongoBatchOpenDurationMs;
+
+    @Value("${resilience.kafka.max-in-flight-sends:1000}")
+    private int kafkaMaxInFlightSends;
+
+    @Value("${resilience.kafka.failure-threshold:3}")
+    private int kafkaFailureThreshold;
+
+    @Value("${resilience.kafka.open-duration-ms:10000}")
+    private long kafkaOpenDurationMs;
+
+    @Getter
+    private DependencyGuard mongo;
+
+    // Background jobs get their own breaker so their failures never open the request-path circuit
+    @Getter
+    private DependencyGuard mongoBatch;
+
+    @Getter
+    private DependencyGuard kafka;
+
+    @PostConstruct
+    void initGuards() {
+        mongo = new DependencyGuard("mongo", mongoMaxConcurrentCalls, mongoFailureThreshold,
+                Duration.ofMillis(mongoOpenDurationMs), error -> causedByAny(error, MONGO_FAILURES), meterRegistry);
+        mongoBatch = new DependencyGuard("mongo-batch", mongoBatchMaxConcurrentCalls, mongoBatchFailureThreshold,
+                Duration.ofMillis(mongoBatchOpenDurationMs), error -> causedByAny(error, MONGO_FAILURES), meterRegistry);
+        kafka = new DependencyGuard("kafka", kafkaMaxInFlightSends, kafkaFailureThreshold,
+                Duration.ofMillis(kafkaOpenDurationMs), error -> causedByAny(error, KAFKA_FAILURES), meterRegistry);
+    }
+
+    static boolean causedByAny(Throwable error, List<Class<? extends Throwable>> types) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.quickcart.backened.resilience;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Kafka being open only delays pushes, so it is reported but does not take the node down
+@Component
+@RequiredArgsConstructor
+public class DependencyGuardsHealthIndicator implements HealthIndicator {
+    private final DependencyGuards dependencyGuards;
+
+    @Override
+    public Health health() {
+        DependencyGuard mongo = dependencyGuards.getMongo();
+        DependencyGuard kafka = dependencyGuards.getKafka();
+        Health.Builder builder = mongo.getState() == DependencyGuard.State.OPEN ? Health.down() : Health.up();
+        return builder
+                .withDetail(mongo.getName(), mongo.getState())
+                .withDetail(kafka.getName(), kafka.getState())
+                .build();
+    }
+}
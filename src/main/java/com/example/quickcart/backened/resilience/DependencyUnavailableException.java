@@ -0,0 +1,14 @@
+package com.example.quickcart.backened.resilience;
+
+public class DependencyUnavailableException extends RuntimeException {
+    private final String dependency;
+
+    public DependencyUnavailableException(String dependency, String reason) {
+        super(dependency + " unavailable: " + reason);
+        this.dependency = dependency;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.quickcart.backened.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control for the cart endpoints: per-session and per-IP token buckets plus a global
+ * in-flight limit that sheds load before the Mongo connection pool saturates.
+ * <p>
+ * Buckets live in a lock-striped table; each stripe is a small access-ordered map capped at its
+ * share of {@code admission.cart.max-tracked-keys}, so idle clients are evicted first and memory
+ * stays bounded no matter how many distinct sessions or addresses show up.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdmissionControlService {
+    private static final String REJECTIONS_METRIC = "cart.admission.rejections";
+    private static final int STRIPES = 64;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${admission.cart.session.requests-per-second:10}")
+    private double sessionRequestsPerSecond;
+
+    @Value("${admission.cart.session.burst:20}")
+    private double sessionBurst;
+
+    @Value("${admission.cart.ip.requests-per-second:50}")
+    private double ipRequestsPerSecond;
+
+    @Value("${admission.cart.ip.burst:100}")
+    private double ipBurst;
+
+    @Value("${admission.cart.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    @Value("${admission.cart.max-concurrent-requests:40}")
+    private int maxConcurrentRequests;
+
+    private TokenBucketTable sessionBuckets;
+    private TokenBucketTable ipBuckets;
+    private Semaphore inFlightRequests;
+    private Counter sessionRateRejections;
+    private Counter ipRateRejections;
+    private Counter concurrencyRejections;
+    private Counter emitterLimitRejections;
+
+    @PostConstruct
+    void initLimits() {
+        sessionBuckets = new TokenBucketTable(sessionRequestsPerSecond, sessionBurst, maxTrackedKeys);
+        ipBuckets = new TokenBucketTable(ipRequestsPerSecond, ipBurst, maxTrackedKeys);
+        inFlightRequests = new Semaphore(maxConcurrentRequests);
+
+        sessionRateRejections = rejectionCounter("session_rate");
+        ipRateRejections = rejectionCounter("ip_rate");
+        concurrencyRejections = rejectionCounter("concurrency");
+        emitterLimitRejections = rejectionCounter("sse_emitter_limit");
+        Gauge.builder("cart.admission.in-flight", () -> maxConcurrentRequests - inFlightRequests.availablePermits())
+                .register(meterRegistry);
+    }
+
+    public boolean tryAdmitSession(String sessionId) {
+        if (sessionId == null || sessionBuckets.tryConsume(sessionId)) {
+            return true;
+        }
+        sessionRateRejections.increment();
+        return false;
+    }
+
+    public boolean tryAdmitClient(String clientAddress) {
+        if (clientAddress == null || ipBuckets.tryConsume(clientAddress)) {
+            return true;
+        }
+        ipRateRejections.increment();
+        return false;
+    }
+
+    public boolean tryEnterRequest() {
+        if (inFlightRequests.tryAcquire()) {
+            return true;
+        }
+        concurrencyRejections.increment();
+        return false;
+    }
+
+    public void exitRequest() {
+        inFlightRequests.release();
+    }
+
+    public void recordEmitterLimitRejection() {
+        emitterLimitRejections.increment();
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder(REJECTIONS_METRIC)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class TokenBucketTable {
+        private final double refillPerNano;
+        private final double capacity;
+        private final Map<String, TokenBucket>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        TokenBucketTable(double requestsPerSecond, double capacity, int maxKeys) {
+            this.refillPerNano = requestsPerSecond / 1_000_000_000d;
+            this.capacity = capacity;
+            this.stripes = new Map[STRIPES];
+            int maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                        return size() > maxKeysPerStripe;
+                    }
+                };
+            }
+        }
+
+        boolean tryConsume(String key) {
+            Map<String, TokenBucket> stripe = stripes[(key.hashCode() & 0x7FFFFFFF) % STRIPES];
+            long now = System.nanoTime();
+            synchronized (stripe) {
+                TokenBucket bucket = stripe.computeIfAbsent(key, k -> new TokenBucket(capacity, now));
+                bucket.refill(now, refillPerNano, capacity);
+                if (bucket.tokens < 1) {
+                    return false;
+                }
+                bucket.tokens -= 1;
+                return true;
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+
+        void refill(long now, double refillPerNano, double capacity) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
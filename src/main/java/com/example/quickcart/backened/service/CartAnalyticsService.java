@@ -0,0 +1,289 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.dto.CartAnalyticsSnapshot;
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory windowed aggregates over the cart-updates stream.
+ * <p>
+ * Events carry full cart snapshots, so adds and removes are derived by diffing against the last
+ * quantities seen for the session. Time is split into fixed buckets kept in a ring; the tumbling
+ * windows are single buckets and the sliding window is the merge of the most recent buckets.
+ * A snapshot is rebuilt after every consumed batch so reads never aggregate on the request path,
+ * and once more on the first read after the current bucket rolls over, since an idle topic
+ * produces no batches to move the windows along.
+ */
+@Service
+public class CartAnalyticsService {
+    private static final double[] CART_VALUE_BOUNDS = {1_000, 5_000, 10_000, 25_000, 50_000};
+
+    @Value("${analytics.cart.bucket-seconds:60}")
+    private long bucketSeconds;
+
+    @Value("${analytics.cart.sliding-window-buckets:5}")
+    private int slidingWindowBuckets;
+
+    @Value("${analytics.cart.top-n:10}")
+    private int topN;
+
+    @Value("${analytics.cart.max-tracked-sessions:50000}")
+    private int maxTrackedSessions;
+
+    @Value("${analytics.cart.max-tracked-products:10000}")
+    private int maxTrackedProducts;
+
+    private final Clock clock;
+    private WindowBucket[] buckets;
+    private Map<String, Map<String, Integer>> lastSeenQuantities;
+    private volatile CartAnalyticsSnapshot snapshot;
+    private volatile long snapshotBucket;
+
+    public CartAnalyticsService() {
+        this(Clock.systemUTC());
+    }
+
+    CartAnalyticsService(Clock clock) {
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    void initWindows() {
+        buckets = new WindowBucket[Math.max(slidingWindowBuckets, 2)];
+        lastSeenQuantities = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Integer>> eldest) {
+                return size() > maxTrackedSessions;
+            }
+        };
+        rebuildSnapshot(currentBucketIndex());
+    }
+
+    public CartAnalyticsSnapshot getSnapshot() {
+        if (currentBucketIndex() != snapshotBucket) {
+            refreshSnapshot();
+        }
+        return snapshot;
+    }
+
+    public synchronized void recordBatch(List<CartUpdateEvent> events) {
+        long nowBucket = currentBucketIndex();
+        for (CartUpdateEvent event : events) {
+            if (event != null && event.getSessionId() != null && event.getCart() != null) {
+                recordEvent(event.getSessionId(), event.getCart(), nowBucket);
+            }
+        }
+        rebuildSnapshot(nowBucket);
+    }
+
+    private synchronized void refreshSnapshot() {
+        long nowBucket = currentBucketIndex();
+        if (nowBucket != snapshotBucket) {
+            rebuildSnapshot(nowBucket);
+        }
+    }
+
+    private void rebuildSnapshot(long nowBucket) {
+        snapshot = buildSnapshot(nowBucket);
+        snapshotBucket = nowBucket;
+    }
+
+    private void recordEvent(String sessionId, Cart cart, long nowBucket) {
+        Map<String, Integer> previousQuantities = lastSeenQuantities.getOrDefault(sessionId, Map.of());
+        Map<String, Integer> currentQuantities = quantitiesOf(cart);
+        lastSeenQuantities.put(sessionId, currentQuantities);
+
+        long eventBucket = Math.min(bucketIndexOf(eventTimeMillis(cart)), nowBucket);
+        if (eventBucket <= nowBucket - buckets.length) {
+            return;
+        }
+
+        WindowBucket bucket = bucketFor(eventBucket);
+        recordQuantityChanges(bucket, previousQuantities, currentQuantities);
+        bucket.recordCartValue(sessionId, cart.getTotalAmount(), maxTrackedSessions);
+    }
+
+    private Map<String, Integer> quantitiesOf(Cart cart) {
+        Map<String, Integer> quantities = new HashMap<>();
+        if (cart.getItems() != null) {
+            for (Cart.CartItem item : cart.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    private void recordQuantityChanges(WindowBucket bucket, Map<String, Integer> previous, Map<String, Integer> current) {
+        current.forEach((productId, quantity) ->
+                bucket.recordChange(productId, quantity - previous.getOrDefault(productId, 0), maxTrackedProducts));
+        previous.forEach((productId, quantity) -> {
+            if (!current.containsKey(productId)) {
+                bucket.recordChange(productId, -quantity, maxTrackedProducts);
+            }
+        });
+    }
+
+    private long eventTimeMillis(Cart cart) {
+        return cart.getLastUpdated() != null ? cart.getLastUpdated().toEpochMilli() : clock.millis();
+    }
+
+    private long currentBucketIndex() {
+        return bucketIndexOf(clock.millis());
+    }
+
+    private long bucketIndexOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketSeconds * 1000);
+    }
+
+    private WindowBucket bucketFor(long index) {
+        int slot = (int) Math.floorMod(index, (long) buckets.length);
+        WindowBucket bucket = buckets[slot];
+        if (bucket == null) {
+            bucket = new WindowBucket();
+            buckets[slot] = bucket;
+        }
+        if (bucket.index != index) {
+            bucket.reset(index);
+        }
+        return bucket;
+    }
+
+    private CartAnalyticsSnapshot buildSnapshot(long nowBucket) {
+        return new CartAnalyticsSnapshot(
+                clock.instant(),
+                statsOf(nowBucket, nowBucket),
+                statsOf(nowBucket - 1, nowBucket - 1),
+                statsOf(nowBucket - slidingWindowBuckets + 1, nowBucket));
+    }
+
+    private CartAnalyticsSnapshot.WindowStats statsOf(long fromBucket, long toBucket) {
+        Map<String, long[]> productActivity = new HashMap<>();
+        Map<String, Double> cartValues = new HashMap<>();
+        long itemsAdded = 0;
+        long itemsRemoved = 0;
+
+        for (long index = fromBucket; index <= toBucket; index++) {
+            WindowBucket bucket = buckets[(int) Math.floorMod(index, (long) buckets.length)];
+            if (bucket == null || bucket.index != index) {
+                continue;
+            }
+            itemsAdded += bucket.itemsAdded;
+            itemsRemoved += bucket.itemsRemoved;
+            bucket.productActivity.forEach((productId, counts) -> {
+                long[] merged = productActivity.computeIfAbsent(productId, k -> new long[2]);
+                merged[0] += counts[0];
+                merged[1] += counts[1];
+            });
+            cartValues.putAll(bucket.cartValues);
+        }
+
+        return new CartAnalyticsSnapshot.WindowStats(
+                bucketStart(fromBucket),
+                bucketStart(toBucket + 1),
+                itemsAdded,
+                itemsRemoved,
+                cartValues.size(),
+                cartValueDistribution(cartValues),
+                topProducts(productActivity));
+    }
+
+    private Instant bucketStart(long index) {
+        return Instant.ofEpochMilli(index * bucketSeconds * 1000);
+    }
+
+    private Map<String, Long> cartValueDistribution(Map<String, Double> cartValues) {
+        long[] counts = new long[CART_VALUE_BOUNDS.length + 1];
+        for (double value : cartValues.values()) {
+            counts[histogramSlot(value)]++;
+        }
+
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            distribution.put(histogramLabel(i), counts[i]);
+        }
+        return distribution;
+    }
+
+    private int histogramSlot(double value) {
+        for (int i = 0; i < CART_VALUE_BOUNDS.length; i++) {
+            if (value < CART_VALUE_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return CART_VALUE_BOUNDS.length;
+    }
+
+    private String histogramLabel(int slot) {
+        if (slot == 0) {
+            return "<" + (long) CART_VALUE_BOUNDS[0];
+        }
+        if (slot == CART_VALUE_BOUNDS.length) {
+            return ">=" + (long) CART_VALUE_BOUNDS[slot - 1];
+        }
+        return (long) CART_VALUE_BOUNDS[slot - 1] + "-" + (long) CART_VALUE_BOUNDS[slot];
+    }
+
+    private List<CartAnalyticsSnapshot.ProductActivity> topProducts(Map<String, long[]> productActivity) {
+        List<CartAnalyticsSnapshot.ProductActivity> products = new ArrayList<>(productActivity.size());
+        productActivity.forEach((productId, counts) ->
+                products.add(new CartAnalyticsSnapshot.ProductActivity(productId, counts[0], counts[1])));
+        products.sort(Comparator.comparingLong(CartAnalyticsSnapshot.ProductActivity::getAdded).reversed()
+                .thenComparing(Comparator.comparingLong(CartAnalyticsSnapshot.ProductActivity::getRemoved).reversed()));
+        return products.size() > topN ? new ArrayList<>(products.subList(0, topN)) : products;
+    }
+
+    private static final class WindowBucket {
+        private long index = Long.MIN_VALUE;
+        private long itemsAdded;
+        private long itemsRemoved;
+        private final Map<String, long[]> productActivity = new HashMap<>();
+        private final Map<String, Double> cartValues = new HashMap<>();
+
+        void reset(long newIndex) {
+            index = newIndex;
+            itemsAdded = 0;
+            itemsRemoved = 0;
+            productActivity.clear();
+            cartValues.clear();
+        }
+
+        void recordChange(String productId, int delta, int maxProducts) {
+            if (delta == 0) {
+                return;
+            }
+            if (delta > 0) {
+                itemsAdded += delta;
+            } else {
+                itemsRemoved -= delta;
+            }
+
+            long[] counts = productActivity.get(productId);
+            if (counts == null) {
+                if (productActivity.size() >= maxProducts) {
+                    return;
+                }
+                counts = new long[2];
+                productActivity.put(productId, counts);
+            }
+            counts[delta > 0 ? 0 : 1] += Math.abs(delta);
+        }
+
+        void recordCartValue(String sessionId, double value, int maxSessions) {
+            if (cartValues.size() < maxSessions || cartValues.containsKey(sessionId)) {
+                cartValues.put(sessionId, value);
+            }
+        }
+    }
+}
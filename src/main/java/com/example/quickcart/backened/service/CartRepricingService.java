@@ -0,0 +1,352 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.dto.RepricingJobStatus;
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.model.Product;
+import com.example.quickcart.backened.repository.ProductRepository;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import com.example.quickcart.backened.store.CartStore;
+import com.example.quickcart.backened.store.MongoCartStore;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Brings open carts in line with current catalog prices after a price change.
+ * <p>
+ * Carts holding any of the changed products are found through the {@code items.productId} index
+ * and streamed from a cursor. A dispatcher thread cuts the stream into chunks, throttled to
+ * {@code repricing.max-carts-per-second}, and hands them to a small worker pool. A chunk is
+ * recomputed in memory and written back with one unordered bulk update. Each update matches on
+ * the cart version it read, so a cart changed by a shopper in the meantime is skipped as a
+ * conflict instead of being overwritten; rerunning the job picks it up. Shopper saves through
+ * {@link CartStore} match on version the same way, so a shopper who read a cart before the job
+ * rewrote it re-reads and retries rather than writing the old prices back. Every cart that was
+ * rewritten gets exactly one update pushed, however many of its lines changed.
+ * <p>
+ * The job writes to Mongo directly, so it only runs when Mongo is the cart store of record. With
+ * the off-heap store the resident copies would never see its writes and would revert them on the
+ * next shopper save, so jobs are refused instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartRepricingService {
+    private static final String PRODUCT_ID_INDEX = "items_productId";
+    private static final String CARTS_METRIC = "cart.repricing.carts";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final DependencyGuards dependencyGuards;
+    private final CartService cartService;
+    private final ProductService productService;
+    private final CartStore cartStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${repricing.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${repricing.parallelism:4}")
+    private int parallelism;
+
+    @Value("${repricing.max-carts-per-second:2000}")
+    private double maxCartsPerSecond;
+
+    @Value("${repricing.cursor-batch-size:1000}")
+    private int cursorBatchSize;
+
+    private final AtomicReference<RepricingJob> currentJob = new AtomicReference<>();
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private ExecutorService dispatcher;
+    private ExecutorService workers;
+    private Counter scannedCarts;
+    private Counter repricedCarts;
+    private Counter conflictedCarts;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void start() {
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "cart-repricing"));
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism,
+                runnable -> new Thread(runnable, "cart-repricing-worker-" + workerCount.incrementAndGet()));
+
+        scannedCarts = meterRegistry.counter(CARTS_METRIC, "outcome", "scanned");
+        repricedCarts = meterRegistry.counter(CARTS_METRIC, "outcome", "repriced");
+        conflictedCarts = meterRegistry.counter(CARTS_METRIC, "outcome", "conflict");
+        chunkTimer = meterRegistry.timer("cart.repricing.chunk");
+        Gauge.builder("cart.repricing.running", runningJobs, AtomicInteger::get).register(meterRegistry);
+
+        // Queued ahead of any job on the same thread, so jobs only ever run once the index exists
+        dispatcher.execute(this::ensureProductIdIndex);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public boolean isSupported() {
+        return cartStore instanceof MongoCartStore;
+    }
+
+    // Empty when a job is already running or the cart store is not Mongo; only one runs at a time
+    public Optional<RepricingJobStatus> startRepricing(Set<String> productIds) {
+        if (!isSupported()) {
+            return Optional.empty();
+        }
+        RepricingJob previous = currentJob.get();
+        if (previous != null && previous.isRunning()) {
+            return Optional.empty();
+        }
+        RepricingJob job = new RepricingJob(Set.copyOf(productIds));
+        if (!currentJob.compareAndSet(previous, job)) {
+            return Optional.empty();
+        }
+        runningJobs.incrementAndGet();
+        // A repricing run follows a price edit made outside ProductService, so cached catalog ETags are stale
+        productService.markCatalogChanged();
+        dispatcher.execute(() -> run(job));
+        return Optional.of(job.toStatus());
+    }
+
+    public Optional<RepricingJobStatus> getStatus() {
+        return Optional.ofNullable(currentJob.get()).map(RepricingJob::toStatus);
+    }
+
+    private void run(RepricingJob job) {
+        try {
+            Map<String, Double> prices = loadPrices(job.productIds);
+            if (!prices.isEmpty()) {
+                Query affectedCarts = query(where("items.productId").in(prices.keySet()));
+                job.totalCarts = dependencyGuards.getMongoBatch().call(() -> mongoTemplate.count(affectedCarts, Cart.class));
+                streamInChunks(job, affectedCarts.cursorBatchSize(cursorBatchSize), prices);
+            }
+            log.info("Repricing job {} finished: {} carts scanned, {} repriced, {} conflicts",
+                    job.jobId, job.scanned.get(), job.repriced.get(), job.conflicts.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(e);
+        } catch (RuntimeException e) {
+            log.error("Repricing job {} failed", job.jobId, e);
+            job.fail(e);
+        } finally {
+            job.finish();
+            runningJobs.decrementAndGet();
+        }
+    }
+
+    private Map<String, Double> loadPrices(Set<String> productIds) {
+        List<Product> products = dependencyGuards.getMongoBatch().call(() -> productRepository.findAllById(productIds));
+        return products.stream().collect(Collectors.toMap(Product::getId, Product::getPrice));
+    }
+
+    // Unguarded: a long build can outlast the socket read timeout, but the server finishes it regardless
+    private void ensureProductIdIndex() {
+        try {
+            mongoTemplate.indexOps(Cart.class)
+                    .createIndex(new Index().on("items.productId", Sort.Direction.ASC).named(PRODUCT_ID_INDEX));
+        } catch (RuntimeException e) {
+            log.warn("Could not confirm cart index {}; repricing queries may scan until it is built", PRODUCT_ID_INDEX, e);
+        }
+    }
+
+    // At most `parallelism` chunks are in flight, so a slow write stalls the cursor rather than buffering carts
+    private void streamInChunks(RepricingJob job, Query affectedCarts, Map<String, Double> prices)
+            throws InterruptedException {
+        Semaphore chunkPermits = new Semaphore(parallelism);
+        long startNanos = System.nanoTime();
+        long dispatched = 0;
+
+        try (Stream<Cart> carts = mongoTemplate.stream(affectedCarts, Cart.class)) {
+            Iterator<Cart> cursor = carts.iterator();
+            List<Cart> chunk = new ArrayList<>(chunkSize);
+            while (cursor.hasNext() && !job.hasFailed()) {
+                chunk.add(cursor.next());
+                if (chunk.size() < chunkSize && cursor.hasNext()) {
+                    continue;
+                }
+                throttle(startNanos, dispatched);
+                dispatched += chunk.size();
+                chunkPermits.acquire();
+                List<Cart> batch = chunk;
+                workers.execute(() -> {
+                    try {
+                        chunkTimer.record(() -> processChunk(job, batch, prices));
+                    } catch (RuntimeException e) {
+                        log.error("Repricing job {} failed on a chunk of {} carts", job.jobId, batch.size(), e);
+                        job.fail(e);
+                    } finally {
+                        chunkPermits.release();
+                    }
+                });
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        chunkPermits.acquire(parallelism);
+        chunkPermits.release(parallelism);
+    }
+
+    private void throttle(long startNanos, long cartsDispatched) throws InterruptedException {
+        long dueNanos = startNanos + (long) (cartsDispatched * 1_000_000_000d / maxCartsPerSecond);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void processChunk(RepricingJob job, List<Cart> carts, Map<String, Double> prices) {
+        Instant repricedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Cart> repriced = new ArrayList<>();
+        for (Cart cart : carts) {
+            if (repriceCart(cart, prices, repricedAt)) {
+                repriced.add(cart);
+            }
+        }
+        job.scanned.addAndGet(carts.size());
+        scannedCarts.increment(carts.size());
+        if (repriced.isEmpty()) {
+            return;
+        }
+
+        List<Cart> written = writeRepricedCarts(repriced);
+        written.forEach(cartService::publishExternalUpdate);
+
+        job.repriced.addAndGet(written.size());
+        job.conflicts.addAndGet(repriced.size() - written.size());
+        repricedCarts.increment(written.size());
+        conflictedCarts.increment(repriced.size() - written.size());
+    }
+
+    // Applies current prices to the cart's lines; returns false and leaves the cart untouched if none changed
+    static boolean repriceCart(Cart cart, Map<String, Double> prices, Instant repricedAt) {
+        boolean changed = false;
+        for (Cart.CartItem item : cart.getItems()) {
+            Double price = prices.get(item.getProductId());
+            if (price != null && price != item.getPriceAtAdd()) {
+                item.setPriceAtAdd(price);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        cart.setTotalAmount(cart.getItems().stream()
+                .mapToDouble(item -> item.getPriceAtAdd() * item.getQuantity())
+                .sum());
+        cart.setLastUpdated(repricedAt);
+        cart.setVersion(cart.getVersion() + 1);
+        return true;
+    }
+
+    private List<Cart> writeRepricedCarts(List<Cart> carts) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+        for (Cart cart : carts) {
+            bulkOps.updateOne(MongoCartStore.savedAt(cart.getId(), cart.getVersion() - 1), new Update()
+                    .set("items", cart.getItems())
+                    .set("totalAmount", cart.getTotalAmount())
+                    .set("lastUpdated", cart.getLastUpdated())
+                    .set("version", cart.getVersion()));
+        }
+        BulkWriteResult result = dependencyGuards.getMongoBatch().call(bulkOps::execute);
+        return result.getMatchedCount() == carts.size() ? carts : confirmWritten(carts);
+    }
+
+    // The bulk result only has counts, so re-read versions to tell which carts lost to a concurrent save
+    private List<Cart> confirmWritten(List<Cart> carts) {
+        Map<String, Cart> byId = new HashMap<>();
+        carts.forEach(cart -> byId.put(cart.getId(), cart));
+        Query written = query(where("_id").in(byId.keySet()));
+        written.fields().include("version", "lastUpdated");
+
+        List<Cart> current = dependencyGuards.getMongoBatch().call(() -> mongoTemplate.find(written, Cart.class));
+        List<Cart> confirmed = new ArrayList<>();
+        for (Cart stored : current) {
+            Cart repriced = byId.get(stored.getId());
+            if (stored.getVersion() == repriced.getVersion()
+                    && Objects.equals(stored.getLastUpdated(), repriced.getLastUpdated())) {
+                confirmed.add(repriced);
+            }
+        }
+        return confirmed;
+    }
+
+    private static final class RepricingJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final Set<String> productIds;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong repriced = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private volatile long totalCarts;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        RepricingJob(Set<String> productIds) {
+            this.productIds = productIds;
+        }
+
+        boolean isRunning() {
+            return finishedAt == null;
+        }
+
+        boolean hasFailed() {
+            return error != null;
+        }
+
+        void finish() {
+            finishedAt = Instant.now();
+        }
+
+        void fail(Exception e) {
+            if (error == null) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+
+        RepricingJobStatus toStatus() {
+            String state = error != null ? "FAILED" : finishedAt != null ? "COMPLETED" : "RUNNING";
+            return new RepricingJobStatus(jobId, state, productIds.size(), totalCarts, scanned.get(),
+                    repriced.get(), conflicts.get(), startedAt, finishedAt, error);
+        }
+    }
+}
@@ -1,37 +1,73 @@
 
 package com.example.quickcart.backened.service;
 import com.example.quickcart.backened.dto.AddToCartRequest;
-import com.example.quickcart.backened.dto.CartUpdateEvent;
 import com.example.quickcart.backened.dto.RemoveFromCartRequest;
+import com.example.quickcart.backened.journal.CartEventType;
+import com.example.quickcart.backened.journal.CartJournal;
 import com.example.quickcart.backened.model.Cart;
 import com.example.quickcart.backened.model.Product;
-import com.example.quickcart.backened.repository.CartRepository;
 import com.example.quickcart.backened.repository.ProductRepository;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import com.example.quickcart.backened.store.CartConflictException;
+import com.example.quickcart.backened.store.CartStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartService {
-    private static final String CART_UPDATES_TOPIC = "cart-updates";
-    private final CartRepository cartRepo;
+    private static final String EMPTY_CART_ETAG = "empty";
+    private static final int MAX_KNOWN_CART_ETAGS = 100_000;
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+    private final CartStore cartStore;
     private final ProductRepository productRepo;
-    private final KafkaTemplate<String, CartUpdateEvent> kafkaTemplate;
+    private final CartUpdatePublisher cartUpdatePublisher;
+    private final DependencyGuards dependencyGuards;
+    private final CartJournal cartJournal;
+
+    // Writes from other nodes, repricing or direct Mongo updates never reach this map, so an entry is
+    // only trusted for this long; after that the GET goes to the store and refreshes it
+    @Value("${cart.etag.max-staleness-ms:2000}")
+    private long etagMaxStalenessMs;
+
+    // Last ETag this node saved or served per session, so conditional GETs can be answered without Mongo
+    private final Map<String, KnownEtag> knownCartEtags = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, KnownEtag> eldest) {
+                    return size() > MAX_KNOWN_CART_ETAGS;
+                }
+            });
+
     public Cart addToCart(AddToCartRequest request) {
-        Cart cart = findOrCreateCart(request.getSessionId());
         Product product = getProductById(request.getProductId());
+        return retryOnConflict(() -> applyAddToCart(request, product));
+    }
 
-        addOrUpdateCartItem(cart, request.getProductId(), request.getQuantity(), product.getPrice(), request.getSessionId());
+    private Cart applyAddToCart(AddToCartRequest request, Product product) {
+        Cart cart = findOrCreateCart(request.getSessionId());
+
+        CartEventType eventType = addOrUpdateCartItem(cart, request.getProductId(), request.getQuantity(), product.getPrice());
 
         updateCartTotals(cart);
-        return saveCartAndPublishUpdate(request.getSessionId(), cart);
+        Cart savedCart = saveCartAndPublishUpdate(request.getSessionId(), cart);
+        journalItemChange(eventType, savedCart, request.getProductId());
+        return savedCart;
     }
     public Cart removeFromCart(RemoveFromCartRequest request) {
+        return retryOnConflict(() -> applyRemoveFromCart(request));
+    }
+
+    private Cart applyRemoveFromCart(RemoveFromCartRequest request) {
         Cart cart = findOrCreateCart(request.getSessionId());
 
         Optional<Cart.CartItem> existingItem = findCartItem(cart, request.getProductId());
@@ -41,24 +77,69 @@ public class CartService {
             return cart;
         }
 
-        removeOrDecreaseCartItem(cart, existingItem.get(), request.getQuantity(), request.getProductId(), request.getSessionId());
+        CartEventType eventType = removeOrDecreaseCartItem(cart, existingItem.get(), request.getQuantity());
 
         updateCartTotals(cart);
-        return saveCartAndPublishUpdate(request.getSessionId(), cart);
+        Cart savedCart = saveCartAndPublishUpdate(request.getSessionId(), cart);
+        journalItemChange(eventType, savedCart, request.getProductId());
+        return savedCart;
     }
     public Cart getCart(String sessionId) {
-        return cartRepo.findById(sessionId).orElse(new Cart());
+        Optional<Cart> cart = findCart(sessionId);
+        cart.ifPresent(this::rememberCartEtag);
+        return cart.orElse(new Cart());
+    }
+
+    // Null when this node has not seen the cart recently enough to vouch for it
+    public String getKnownCartEtag(String sessionId) {
+        KnownEtag known = knownCartEtags.get(sessionId);
+        if (known == null || System.currentTimeMillis() - known.rememberedAtMillis() > etagMaxStalenessMs) {
+            return null;
+        }
+        return known.etag();
     }
+
+    public String getCartEtag(Cart cart) {
+        if (cart.getId() == null) {
+            return EMPTY_CART_ETAG;
+        }
+        return cart.getVersion() + "-" + cart.getLastUpdated().toEpochMilli();
+    }
+
+    // For carts rewritten outside this service, e.g. by bulk repricing
+    public void publishExternalUpdate(Cart cart) {
+        rememberCartEtag(cart);
+        cartUpdatePublisher.publish(cart.getId(), cart);
+    }
+
+    // A conflicting save means another writer, e.g. repricing or a second tab, moved the cart on: re-read and reapply
+    private Cart retryOnConflict(Supplier<Cart> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return change.get();
+            } catch (CartConflictException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Cart {} changed concurrently; retrying (attempt {})", e.getSessionId(), attempt);
+            }
+        }
+    }
+
+    private Optional<Cart> findCart(String sessionId) {
+        return cartStore.findById(sessionId);
+    }
+
     private Cart findOrCreateCart(String sessionId) {
-        return cartRepo.findById(sessionId)
+        return findCart(sessionId)
                 .orElseGet(() -> createEmptyCart(sessionId));
     }
     private Cart createEmptyCart(String sessionId) {
-        return new Cart(sessionId, new ArrayList<>(), 0.0, Instant.now());
+        return new Cart(sessionId, new ArrayList<>(), 0.0, Instant.now(), 0L);
     }
 
     private Product getProductById(String productId) {
-        return productRepo.findById(productId)
+        return dependencyGuards.getMongo().call(() -> productRepo.findById(productId))
                 .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
     }
 
@@ -68,55 +149,51 @@ public class CartService {
                 .findFirst();
     }
 
-    private void addOrUpdateCartItem(Cart cart, String productId, int quantityToAdd, double price, String sessionId) {
+    private CartEventType addOrUpdateCartItem(Cart cart, String productId, int quantityToAdd, double price) {
         Optional<Cart.CartItem> existingItem = findCartItem(cart, productId);
 
         if (existingItem.isPresent()) {
-            incrementCartItemQuantity(existingItem.get(), quantityToAdd, productId, sessionId);
-        } else {
-            addNewCartItem(cart, productId, quantityToAdd, price, sessionId);
+            incrementCartItemQuantity(existingItem.get(), quantityToAdd);
+            return CartEventType.QUANTITY_INCREASED;
         }
+        addNewCartItem(cart, productId, quantityToAdd, price);
+        return CartEventType.ITEM_ADDED;
     }
 
-    private void incrementCartItemQuantity(Cart.CartItem item, int quantityToAdd, String productId, String sessionId) {
+    private void incrementCartItemQuantity(Cart.CartItem item, int quantityToAdd) {
         item.setQuantity(item.getQuantity() + quantityToAdd);
-        log.info("Updated quantity for productId {} to {} in cart for session {}",
-                productId, item.getQuantity(), sessionId);
     }
 
-    private void addNewCartItem(Cart cart, String productId, int quantity, double price, String sessionId) {
+    private void addNewCartItem(Cart cart, String productId, int quantity, double price) {
         Cart.CartItem newItem = new Cart.CartItem(productId, quantity, price);
         cart.getItems().add(newItem);
-        log.info("Added new item with productId {} to cart for session {}", productId, sessionId);
     }
 
-    private void removeOrDecreaseCartItem(Cart cart, Cart.CartItem item, Integer quantityToRemove, String productId, String sessionId) {
+    private CartEventType removeOrDecreaseCartItem(Cart cart, Cart.CartItem item, Integer quantityToRemove) {
         if (shouldRemoveEntireItem(quantityToRemove)) {
-            removeCartItem(cart, item, productId, sessionId);
-            return;
+            removeCartItem(cart, item);
+            return CartEventType.ITEM_REMOVED;
         }
 
         int newQuantity = item.getQuantity() - quantityToRemove;
         if (newQuantity <= 0) {
-            removeCartItem(cart, item, productId, sessionId);
-        } else {
-            decreaseCartItemQuantity(item, newQuantity, productId, sessionId);
+            removeCartItem(cart, item);
+            return CartEventType.ITEM_REMOVED;
         }
+        decreaseCartItemQuantity(item, newQuantity);
+        return CartEventType.QUANTITY_DECREASED;
     }
 
     private boolean shouldRemoveEntireItem(Integer quantityToRemove) {
         return quantityToRemove == null || quantityToRemove <= 0;
     }
 
-    private void removeCartItem(Cart cart, Cart.CartItem item, String productId, String sessionId) {
+    private void removeCartItem(Cart cart, Cart.CartItem item) {
         cart.getItems().remove(item);
-        log.info("Removed item with productId {} from cart for session {}", productId, sessionId);
     }
 
-    private void decreaseCartItemQuantity(Cart.CartItem item, int newQuantity, String productId, String sessionId) {
+    private void decreaseCartItemQuantity(Cart.CartItem item, int newQuantity) {
         item.setQuantity(newQuantity);
-        log.info("Decreased quantity for productId {} to {} in cart for session {}",
-                productId, newQuantity, sessionId);
     }
 
     private void updateCartTotals(Cart cart) {
@@ -125,14 +202,27 @@ public class CartService {
                 .sum();
         cart.setTotalAmount(totalAmount);
         cart.setLastUpdated(Instant.now());
+        cart.setVersion(cart.getVersion() + 1);
     }
-    private void publishCartUpdate(String sessionId, Cart cart) {
-        CartUpdateEvent event = new CartUpdateEvent(sessionId, cart);
-        kafkaTemplate.send(CART_UPDATES_TOPIC, sessionId, event);
+
+    private void rememberCartEtag(Cart cart) {
+        knownCartEtags.put(cart.getId(), new KnownEtag(getCartEtag(cart), System.currentTimeMillis()));
+    }
+
+    private void journalItemChange(CartEventType eventType, Cart cart, String productId) {
+        Cart.CartItem item = findCartItem(cart, productId).orElse(null);
+        cartJournal.append(eventType, cart.getId(), cart.getVersion(), productId,
+                item != null ? item.getQuantity() : 0,
+                item != null ? item.getPriceAtAdd() : 0.0);
     }
+
     private Cart saveCartAndPublishUpdate(String sessionId, Cart cart) {
-        Cart savedCart = cartRepo.save(cart);
-        publishCartUpdate(sessionId, savedCart);
+        Cart savedCart = cartStore.save(cart);
+        rememberCartEtag(savedCart);
+        cartUpdatePublisher.publish(sessionId, savedCart);
         return savedCart;
     }
-}
\ No newline at end of file
+
+    private record KnownEtag(String etag, long rememberedAtMillis) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.resilience.DependencyGuard;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import com.example.quickcart.backened.resilience.DependencyUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes cart updates off the request thread.
+ * <p>
+ * Sends run on a single-threaded, bounded executor so a slow or unreachable broker can never hold
+ * a Tomcat thread, and per-session ordering is preserved. When the queue is full or the Kafka
+ * circuit is open, the newest cart per session is parked and retried periodically; the cart is
+ * already saved, only the push is delayed. Sends complete asynchronously, so the highest version
+ * in flight per session is tracked: an older cart is neither sent nor parked once a newer one is
+ * on its way, and SSE clients never end on a stale cart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartUpdatePublisher {
+    private static final String CART_UPDATES_TOPIC = "cart-updates";
+
+    private final KafkaTemplate<String, CartUpdateEvent> kafkaTemplate;
+    private final DependencyGuards dependencyGuards;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${resilience.kafka.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${resilience.kafka.max-delayed-sessions:100000}")
+    private int maxDelayedSessions;
+
+    @Value("${resilience.kafka.retry-interval-ms:5000}")
+    private long retryIntervalMs;
+
+    private final Map<String, Cart> delayedUpdates = new ConcurrentHashMap<>();
+    private final Map<String, InFlightSends> inFlightSends = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor sendExecutor;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    void start() {
+        sendExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, "cart-update-publisher"));
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-update-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.scheduleWithFixedDelay(this::retryDelayedUpdates, retryIntervalMs, retryIntervalMs, TimeUnit.MILLISECONDS);
+        Gauge.builder("cart.updates.delayed", delayedUpdates, Map::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        retryScheduler.shutdownNow();
+        sendExecutor.shutdown();
+    }
+
+    public void publish(String sessionId, Cart cart) {
+        clearDelayed(sessionId, cart);
+        try {
+            sendExecutor.execute(() -> send(sessionId, cart));
+        } catch (RejectedExecutionException e) {
+            delay(sessionId, cart);
+        }
+    }
+
+    private void send(String sessionId, Cart cart) {
+        if (!startSend(sessionId, cart)) {
+            return;
+        }
+        DependencyGuard kafka = dependencyGuards.getKafka();
+        try {
+            kafka.acquire();
+        } catch (DependencyUnavailableException e) {
+            failSend(sessionId, cart);
+            return;
+        }
+
+        try {
+            kafkaTemplate.send(CART_UPDATES_TOPIC, sessionId, new CartUpdateEvent(sessionId, cart))
+                    .whenComplete((result, ex) -> {
+                        kafka.release();
+                        if (ex == null) {
+                            kafka.onSuccess();
+                            finishSend(sessionId, cart);
+                            clearDelayed(sessionId, cart);
+                        } else {
+                            kafka.onError(ex);
+                            failSend(sessionId, cart);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            kafka.release();
+            kafka.onError(e);
+            failSend(sessionId, cart);
+        }
+    }
+
+    // False when a newer version for the session is already in flight, so this one would land stale
+    private boolean startSend(String sessionId, Cart cart) {
+        boolean[] started = {false};
+        inFlightSends.compute(sessionId, (k, sends) -> {
+            InFlightSends updated = sends != null ? sends : new InFlightSends();
+            if (cart.getVersion() >= updated.highestVersion) {
+                updated.highestVersion = cart.getVersion();
+                updated.count++;
+                started[0] = true;
+            }
+            return updated.count == 0 ? null : updated;
+        });
+        return started[0];
+    }
+
+    // True when a newer version was sent while this one was in flight
+    private boolean finishSend(String sessionId, Cart cart) {
+        boolean[] superseded = {false};
+        inFlightSends.computeIfPresent(sessionId, (k, sends) -> {
+            superseded[0] = sends.highestVersion > cart.getVersion();
+            sends.count--;
+            return sends.count == 0 ? null : sends;
+        });
+        return superseded[0];
+    }
+
+    private void failSend(String sessionId, Cart cart) {
+        if (!finishSend(sessionId, cart)) {
+            delay(sessionId, cart);
+        }
+    }
+
+    private void delay(String sessionId, Cart cart) {
+        if (delayedUpdates.size() >= maxDelayedSessions && !delayedUpdates.containsKey(sessionId)) {
+            log.warn("Dropping cart update for session {}: delayed update buffer is full", sessionId);
+            return;
+        }
+        delayedUpdates.merge(sessionId, cart, (parked, incoming) ->
+                incoming.getVersion() >= parked.getVersion() ? incoming : parked);
+    }
+
+    private void clearDelayed(String sessionId, Cart sent) {
+        delayedUpdates.computeIfPresent(sessionId, (k, parked) ->
+                parked.getVersion() <= sent.getVersion() ? null : parked);
+    }
+
+    private void retryDelayedUpdates() {
+        if (delayedUpdates.isEmpty() || !dependencyGuards.getKafka().isCallPermitted()) {
+            return;
+        }
+        List<Map.Entry<String, Cart>> pending = new ArrayList<>(delayedUpdates.entrySet());
+        for (Map.Entry<String, Cart> entry : pending) {
+            if (delayedUpdates.remove(entry.getKey(), entry.getValue())) {
+                publish(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static final class InFlightSends {
+        private int count;
+        private long highestVersion = Long.MIN_VALUE;
+    }
+}
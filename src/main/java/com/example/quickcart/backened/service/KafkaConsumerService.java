@@ -1,8 +1,22 @@
 package com.example.quickcart.backened.service;
 
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
+@RequiredArgsConstructor
 public class KafkaConsumerService {
-    // Not needed for frontend push — but useful if you had notifications, analytics, etc.
-}
\ No newline at end of file
+    private final CartAnalyticsService cartAnalyticsService;
+
+    @KafkaListener(
+            topics = "cart-updates",
+            groupId = "${analytics.cart.consumer-group:cart-analytics}",
+            containerFactory = "cartAnalyticsListenerContainerFactory")
+    public void consumeCartUpdates(List<CartUpdateEvent> events) {
+        cartAnalyticsService.recordBatch(events);
+    }
+}
@@ -2,26 +2,48 @@ package com.example.quickcart.backened.service;
 
 import com.example.quickcart.backened.model.Product;
 import com.example.quickcart.backened.repository.ProductRepository;
+import com.example.quickcart.backened.resilience.DependencyGuards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
+    private final DependencyGuards dependencyGuards;
+
+    // Seeded from the clock so ETags handed out before a restart never match the reloaded catalog
+    private final AtomicLong catalogVersion = new AtomicLong(System.currentTimeMillis());
+
+    // Products edited outside createProduct don't bump the version, so the ETag also rolls over on
+    // this period to bound how long a client can be told its stale catalog is current
+    @Value("${catalog.etag.max-staleness-ms:60000}")
+    private long catalogEtagMaxStalenessMs;
 
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return dependencyGuards.getMongo().call(productRepository::findAll);
     }
 
     public Optional<Product> getProductById(String id) {
-        return productRepository.findById(id);
+        return dependencyGuards.getMongo().call(() -> productRepository.findById(id));
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = dependencyGuards.getMongo().call(() -> productRepository.save(product));
+        markCatalogChanged();
+        return savedProduct;
+    }
+
+    public String getCatalogEtag() {
+        return "catalog-" + catalogVersion.get() + "-" + System.currentTimeMillis() / catalogEtagMaxStalenessMs;
+    }
+
+    public void markCatalogChanged() {
+        catalogVersion.incrementAndGet();
     }
 }
\ No newline at end of file
@@ -1,11 +1,15 @@
 
 package com.example.quickcart.backened.service;
 import com.example.quickcart.backened.dto.CartUpdateEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -14,25 +18,53 @@ public class SseEmitterService {
     private static final long EMITTER_TIMEOUT = 30_000L;
     private static final String CART_UPDATE_EVENT_NAME = "cart-update";
 
+    @Value("${admission.cart.max-emitters-per-session:3}")
+    private int maxEmittersPerSession;
+
     private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
 
-    public SseEmitter createEmitter(String sessionId) {
+    public Optional<SseEmitter> createEmitter(String sessionId) {
         SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
-        registerEmitter(sessionId, emitter);
+        if (!registerEmitter(sessionId, emitter)) {
+            return Optional.empty();
+        }
         configureEmitterCallbacks(sessionId, emitter);
-        return emitter;
+        return Optional.of(emitter);
+    }
+
+    @KafkaListener(topics = "cart-updates", containerFactory = "cartUpdatesListenerContainerFactory")
+    public void handleCartUpdates(List<CartUpdateEvent> events) {
+        latestEventPerSession(events).values().forEach(this::handleCartUpdate);
     }
 
-    @KafkaListener(topics = "cart-updates")
-    public void handleCartUpdate(CartUpdateEvent event) {
+    private void handleCartUpdate(CartUpdateEvent event) {
         Set<SseEmitter> sessionEmitters = emitters.get(event.getSessionId());
         if (sessionEmitters != null) {
             broadcastToEmitters(sessionEmitters, event);
         }
     }
 
-    private void registerEmitter(String sessionId, SseEmitter emitter) {
-        emitters.computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+    // Events carry the whole cart, so only the newest one per session in a poll is worth pushing
+    private Map<String, CartUpdateEvent> latestEventPerSession(List<CartUpdateEvent> events) {
+        Map<String, CartUpdateEvent> latest = new LinkedHashMap<>();
+        for (CartUpdateEvent event : events) {
+            if (event != null && event.getSessionId() != null) {
+                latest.put(event.getSessionId(), event);
+            }
+        }
+        return latest;
+    }
+
+    private boolean registerEmitter(String sessionId, SseEmitter emitter) {
+        boolean[] registered = {false};
+        emitters.compute(sessionId, (k, sessionEmitters) -> {
+            Set<SseEmitter> updated = sessionEmitters != null ? sessionEmitters : ConcurrentHashMap.newKeySet();
+            if (updated.size() < maxEmittersPerSession) {
+                registered[0] = updated.add(emitter);
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+        return registered[0];
     }
 
     private void configureEmitterCallbacks(String sessionId, SseEmitter emitter) {
@@ -41,16 +73,14 @@ public class SseEmitterService {
             emitter.complete();
             removeEmitter(sessionId, emitter);
         });
+        emitter.onError(e -> removeEmitter(sessionId, emitter));
     }
 
     private void removeEmitter(String sessionId, SseEmitter emitter) {
-        Set<SseEmitter> sessionEmitters = emitters.get(sessionId);
-        if (sessionEmitters != null) {
+        emitters.computeIfPresent(sessionId, (k, sessionEmitters) -> {
             sessionEmitters.remove(emitter);
-            if (sessionEmitters.isEmpty()) {
-                emitters.remove(sessionId);
-            }
-        }
+            return sessionEmitters.isEmpty() ? null : sessionEmitters;
+        });
     }
 
     private void broadcastToEmitters(Set<SseEmitter> sessionEmitters, CartUpdateEvent event) {
@@ -0,0 +1,14 @@
+package com.example.quickcart.backened.store;
+
+public class CartConflictException extends RuntimeException {
+    private final String sessionId;
+
+    public CartConflictException(String sessionId) {
+        super("Cart " + sessionId + " was changed concurrently");
+        this.sessionId = sessionId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+}
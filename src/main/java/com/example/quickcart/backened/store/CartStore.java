@@ -0,0 +1,18 @@
+package com.example.quickcart.backened.store;
+
+import com.example.quickcart.backened.model.Cart;
+
+import java.util.Optional;
+
+public interface CartStore {
+
+    Optional<Cart> findById(String sessionId);
+
+    // Saves a cart read at version - 1; throws CartConflictException if the stored copy has moved on
+    default Cart save(Cart cart) {
+        return save(cart, cart.getVersion() - 1);
+    }
+
+    // For writers that move a cart on by more than one version at once, such as journal replay
+    Cart save(Cart cart, long readVersion);
+}
@@ -0,0 +1,131 @@
+package com.example.quickcart.backened.store;
+
+import com.example.quickcart.backened.kafka.CartUpdateEventCodec;
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.resilience.DependencyUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes carts saved in {@link OffHeapCartStore} through to a backing store off the request thread.
+ * <p>
+ * Pending carts are coalesced to the highest-versioned encoding per session and written by a single
+ * thread with {@link MongoCartStore#saveIfNewer}, so a late or retried write never rolls a cart back. Reads consult the pending map before the backing store,
+ * so a cart evicted before its write lands is never read back stale. Saving threads never block:
+ * when the queue is full, or a write fails, the cart stays pending and the retry scheduler queues
+ * it again, and once {@code maxPendingWrites} sessions are waiting new saves fail fast rather than
+ * growing the backlog. Only carts still pending are lost if the process dies.
+ */
+@Slf4j
+public class CartWriteThroughQueue {
+    private static final String BACKING_STORE = "cart-store";
+
+    private final MongoCartStore backingStore;
+    private final int maxPendingWrites;
+    private final Map<String, byte[]> pendingWrites = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor writeExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private final Counter writeFailures;
+    private final Counter deferredWrites;
+
+    public CartWriteThroughQueue(MongoCartStore backingStore, int queueCapacity, int maxPendingWrites, long retryIntervalMs,
+                                 MeterRegistry meterRegistry) {
+        this.backingStore = backingStore;
+        this.maxPendingWrites = maxPendingWrites;
+        this.writeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, "cart-store-writer"));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-store-write-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.scheduleWithFixedDelay(this::retryPendingWrites, retryIntervalMs, retryIntervalMs, TimeUnit.MILLISECONDS);
+
+        writeFailures = meterRegistry.counter("cart.store.write-through.failures");
+        deferredWrites = meterRegistry.counter("cart.store.write-through.deferred");
+        Gauge.builder("cart.store.write-through.pending", pendingWrites, Map::size).register(meterRegistry);
+    }
+
+    public void write(String sessionId, byte[] encodedCart) {
+        if (pendingWrites.size() >= maxPendingWrites && !pendingWrites.containsKey(sessionId)) {
+            throw new DependencyUnavailableException(BACKING_STORE, "too many cart writes pending");
+        }
+        boolean[] added = new boolean[1];
+        pendingWrites.compute(sessionId, (id, pending) -> {
+            added[0] = pending == null;
+            return pending == null || CartUpdateEventCodec.decodeCartVersion(encodedCart)
+                    >= CartUpdateEventCodec.decodeCartVersion(pending) ? encodedCart : pending;
+        });
+        if (added[0]) {
+            enqueue(sessionId);
+        }
+    }
+
+    public Optional<Cart> find(String sessionId) {
+        byte[] pending = pendingWrites.get(sessionId);
+        return pending != null ? Optional.of(CartUpdateEventCodec.decodeCart(pending)) : backingStore.findById(sessionId);
+    }
+
+    public int pendingWrites() {
+        return pendingWrites.size();
+    }
+
+    public void close() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        writeExecutor.shutdown();
+        if (writeExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            // Carts the queue had no room for are written here, now that the writer thread is done
+            new ArrayList<>(pendingWrites.keySet()).forEach(this::writePending);
+        }
+        if (!pendingWrites.isEmpty()) {
+            log.warn("Closed cart write-through queue with {} carts not written", pendingWrites.size());
+        }
+    }
+
+    // A full queue leaves the cart pending for the retry scheduler instead of holding up the caller
+    private void enqueue(String sessionId) {
+        try {
+            writeExecutor.execute(() -> writePending(sessionId));
+        } catch (RejectedExecutionException e) {
+            deferredWrites.increment();
+        }
+    }
+
+    // Loops because a newer save may land while the previous one is being written
+    private void writePending(String sessionId) {
+        byte[] encodedCart = pendingWrites.get(sessionId);
+        while (encodedCart != null) {
+            try {
+                backingStore.saveIfNewer(CartUpdateEventCodec.decodeCart(encodedCart));
+            } catch (RuntimeException e) {
+                writeFailures.increment();
+                log.warn("Failed to write cart {} through to the backing store; will retry", sessionId, e);
+                return;
+            }
+            if (pendingWrites.remove(sessionId, encodedCart)) {
+                return;
+            }
+            encodedCart = pendingWrites.get(sessionId);
+        }
+    }
+
+    private void retryPendingWrites() {
+        if (pendingWrites.isEmpty() || !writeExecutor.getQueue().isEmpty()) {
+            return;
+        }
+        new ArrayList<>(pendingWrites.keySet()).forEach(this::enqueue);
+    }
+}
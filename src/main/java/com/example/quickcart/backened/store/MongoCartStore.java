@@ -0,0 +1,70 @@
+package com.example.quickcart.backened.store;
+
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.repository.CartRepository;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * {@link CartStore} over the {@code carts} collection.
+ * <p>
+ * Saves replace the document only while it still holds the version the cart was read at, and
+ * insert it when there is none. If another writer got there first the upsert collides on
+ * {@code _id}, which surfaces as a {@link CartConflictException} rather than a lost update.
+ */
+@RequiredArgsConstructor
+public class MongoCartStore implements CartStore {
+    private final CartRepository cartRepo;
+    private final MongoTemplate mongoTemplate;
+    private final DependencyGuards dependencyGuards;
+
+    @Override
+    public Optional<Cart> findById(String sessionId) {
+        return dependencyGuards.getMongo().call(() -> cartRepo.findById(sessionId));
+    }
+
+    @Override
+    public Cart save(Cart cart, long readVersion) {
+        // Conflicts are returned rather than thrown inside the guard so they never count towards the breaker
+        boolean saved = dependencyGuards.getMongo().call(() -> replaceMatching(savedAt(cart.getId(), readVersion), cart));
+        if (!saved) {
+            throw new CartConflictException(cart.getId());
+        }
+        return cart;
+    }
+
+    // For write-through from a store that already ordered the saves; an older copy never replaces a newer one
+    public void saveIfNewer(Cart cart) {
+        Criteria olderVersion = new Criteria().orOperator(
+                where("version").lt(cart.getVersion()), where("version").exists(false));
+        dependencyGuards.getMongo().call(() -> replaceMatching(query(where("_id").is(cart.getId()).andOperator(olderVersion)), cart));
+    }
+
+    private boolean replaceMatching(Query query, Cart cart) {
+        try {
+            mongoTemplate.findAndReplace(query, cart, FindAndReplaceOptions.options().upsert());
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Matches the cart as saved at the given version; carts saved before versioning existed have no
+    // version field, which reads back as 0. Shared with bulk writers that make the same check
+    public static Query savedAt(String sessionId, long version) {
+        Criteria versionMatches = version == 0
+                ? new Criteria().orOperator(where("version").is(0L), where("version").exists(false))
+                : where("version").is(version);
+        return query(where("_id").is(sessionId).andOperator(versionMatches));
+    }
+}
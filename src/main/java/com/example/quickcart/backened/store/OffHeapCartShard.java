@@ -0,0 +1,338 @@
+package com.example.quickcart.backened.store;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * One independently locked partition of {@link OffHeapCartStore}.
+ * <p>
+ * Each entry is a {@code [key length][key][value]} payload chained through fixed-size blocks carved
+ * out of direct buffers; the first four bytes of a block hold the id of the next block, and free
+ * blocks are linked the same way. The key index is an open-addressing table of entry ids and the LRU
+ * order is an intrusive doubly-linked list, both kept in primitive arrays, so the heap footprint is a
+ * few long-lived arrays however many carts are resident.
+ */
+final class OffHeapCartShard {
+    static final int BLOCK_SIZE = 256;
+
+    private static final int BLOCK_HEADER = Integer.BYTES;
+    private static final int BLOCK_PAYLOAD = BLOCK_SIZE - BLOCK_HEADER;
+    private static final int KEY_LENGTH_BYTES = Short.BYTES;
+    private static final int NONE = -1;
+
+    private final int maxBlocks;
+    private final int blocksPerChunk;
+    private final ByteBuffer[] chunks;
+    private int allocatedBlocks;
+    private int freeBlockHead = NONE;
+    private int freeBlockCount;
+
+    private final int[] entryHash;
+    private final int[] entryFirstBlock;
+    private final int[] entryLength;
+    private final int[] lruPrev;
+    private final int[] lruNext;
+    private final int[] freeEntries;
+    private int freeEntryCount;
+    private int lruHead = NONE;
+    private int lruTail = NONE;
+
+    private final int[] table;
+    private final int tableMask;
+
+    OffHeapCartShard(int maxEntries, long maxBytes, int chunkBytes) {
+        maxBlocks = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / BLOCK_SIZE));
+        blocksPerChunk = Math.max(1, Math.min(chunkBytes / BLOCK_SIZE, maxBlocks));
+        chunks = new ByteBuffer[(maxBlocks + blocksPerChunk - 1) / blocksPerChunk];
+
+        int capacity = Math.max(1, maxEntries);
+        entryHash = new int[capacity];
+        entryFirstBlock = new int[capacity];
+        entryLength = new int[capacity];
+        lruPrev = new int[capacity];
+        lruNext = new int[capacity];
+        freeEntries = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeEntries[i] = capacity - 1 - i;
+        }
+        freeEntryCount = capacity;
+
+        // At most half full, so probe chains stay short and always terminate
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        tableMask = table.length - 1;
+    }
+
+    synchronized byte[] get(byte[] key, int hash) {
+        int entry = findEntry(key, hash);
+        if (entry == NONE) {
+            return null;
+        }
+        moveToFront(entry);
+        return readValue(entry);
+    }
+
+    /**
+     * Stores the value, evicting least-recently-used entries until it fits. Evicted entries are
+     * handed to {@code onEvict} while the shard lock is still held. Returns false, leaving no entry
+     * for the key, when the value is larger than the whole shard; with {@code replace} unset an
+     * existing entry is left untouched and reported as stored.
+     */
+    synchronized boolean put(byte[] key, int hash, byte[] value, boolean replace, BiConsumer<byte[], byte[]> onEvict) {
+        if (key.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Key of " + key.length + " bytes is too long");
+        }
+        int existing = findEntry(key, hash);
+        if (existing != NONE) {
+            if (!replace) {
+                return true;
+            }
+            removeEntry(existing);
+        }
+
+        int length = KEY_LENGTH_BYTES + key.length + value.length;
+        int blocksNeeded = (length + BLOCK_PAYLOAD - 1) / BLOCK_PAYLOAD;
+        if (blocksNeeded > maxBlocks) {
+            return false;
+        }
+        while (freeEntryCount == 0 || freeBlockCount + (maxBlocks - allocatedBlocks) < blocksNeeded) {
+            evictEldest(onEvict);
+        }
+
+        int entry = freeEntries[--freeEntryCount];
+        int firstBlock = allocateChain(blocksNeeded);
+        chunkOf(firstBlock).putShort(blockOffset(firstBlock) + BLOCK_HEADER, (short) key.length);
+        transfer(firstBlock, KEY_LENGTH_BYTES, key, true);
+        transfer(firstBlock, KEY_LENGTH_BYTES + key.length, value, true);
+
+        entryHash[entry] = hash;
+        entryFirstBlock[entry] = firstBlock;
+        entryLength[entry] = length;
+        insertIntoTable(entry);
+        linkAtFront(entry);
+        return true;
+    }
+
+    synchronized boolean remove(byte[] key, int hash) {
+        int entry = findEntry(key, hash);
+        if (entry == NONE) {
+            return false;
+        }
+        removeEntry(entry);
+        return true;
+    }
+
+    synchronized void forEach(BiConsumer<byte[], byte[]> action) {
+        for (int entry = lruHead; entry != NONE; entry = lruNext[entry]) {
+            action.accept(readKey(entry), readValue(entry));
+        }
+    }
+
+    synchronized int size() {
+        return entryHash.length - freeEntryCount;
+    }
+
+    synchronized long usedBytes() {
+        return (long) (allocatedBlocks - freeBlockCount) * BLOCK_SIZE;
+    }
+
+    private void evictEldest(BiConsumer<byte[], byte[]> onEvict) {
+        int entry = lruTail;
+        onEvict.accept(readKey(entry), readValue(entry));
+        removeEntry(entry);
+    }
+
+    private void removeEntry(int entry) {
+        removeFromTable(entry);
+        unlink(entry);
+        freeChain(entryFirstBlock[entry]);
+        freeEntries[freeEntryCount++] = entry;
+    }
+
+    private int keyLength(int entry) {
+        int firstBlock = entryFirstBlock[entry];
+        return chunkOf(firstBlock).getShort(blockOffset(firstBlock) + BLOCK_HEADER);
+    }
+
+    private byte[] readKey(int entry) {
+        byte[] key = new byte[keyLength(entry)];
+        transfer(entryFirstBlock[entry], KEY_LENGTH_BYTES, key, false);
+        return key;
+    }
+
+    private byte[] readValue(int entry) {
+        int valueOffset = KEY_LENGTH_BYTES + keyLength(entry);
+        byte[] value = new byte[entryLength[entry] - valueOffset];
+        transfer(entryFirstBlock[entry], valueOffset, value, false);
+        return value;
+    }
+
+    private boolean keyEquals(int entry, byte[] key) {
+        if (keyLength(entry) != key.length) {
+            return false;
+        }
+        if (KEY_LENGTH_BYTES + key.length > BLOCK_PAYLOAD) {
+            return Arrays.equals(readKey(entry), key);
+        }
+        int firstBlock = entryFirstBlock[entry];
+        ByteBuffer chunk = chunkOf(firstBlock);
+        int keyStart = blockOffset(firstBlock) + BLOCK_HEADER + KEY_LENGTH_BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Copies between data and the entry payload starting at payloadOffset, following the block chain
+    private void transfer(int firstBlock, int payloadOffset, byte[] data, boolean write) {
+        int block = firstBlock;
+        int offset = payloadOffset;
+        while (offset >= BLOCK_PAYLOAD) {
+            block = nextBlock(block);
+            offset -= BLOCK_PAYLOAD;
+        }
+        int done = 0;
+        while (done < data.length) {
+            int length = Math.min(BLOCK_PAYLOAD - offset, data.length - done);
+            int position = blockOffset(block) + BLOCK_HEADER + offset;
+            if (write) {
+                chunkOf(block).put(position, data, done, length);
+            } else {
+                chunkOf(block).get(position, data, done, length);
+            }
+            done += length;
+            offset = 0;
+            if (done < data.length) {
+                block = nextBlock(block);
+            }
+        }
+    }
+
+    private int allocateChain(int blocks) {
+        int first = allocateBlock();
+        int previous = first;
+        for (int i = 1; i < blocks; i++) {
+            int block = allocateBlock();
+            setNextBlock(previous, block);
+            previous = block;
+        }
+        setNextBlock(previous, NONE);
+        return first;
+    }
+
+    private int allocateBlock() {
+        if (freeBlockHead != NONE) {
+            int block = freeBlockHead;
+            freeBlockHead = nextBlock(block);
+            freeBlockCount--;
+            return block;
+        }
+        int block = allocatedBlocks++;
+        int chunk = block / blocksPerChunk;
+        if (chunks[chunk] == null) {
+            int blocksInChunk = Math.min(blocksPerChunk, maxBlocks - chunk * blocksPerChunk);
+            chunks[chunk] = ByteBuffer.allocateDirect(blocksInChunk * BLOCK_SIZE);
+        }
+        return block;
+    }
+
+    private void freeChain(int firstBlock) {
+        int block = firstBlock;
+        while (block != NONE) {
+            int next = nextBlock(block);
+            setNextBlock(block, freeBlockHead);
+            freeBlockHead = block;
+            freeBlockCount++;
+            block = next;
+        }
+    }
+
+    private int nextBlock(int block) {
+        return chunkOf(block).getInt(blockOffset(block));
+    }
+
+    private void setNextBlock(int block, int next) {
+        chunkOf(block).putInt(blockOffset(block), next);
+    }
+
+    private ByteBuffer chunkOf(int block) {
+        return chunks[block / blocksPerChunk];
+    }
+
+    private int blockOffset(int block) {
+        return (block % blocksPerChunk) * BLOCK_SIZE;
+    }
+
+    private int findEntry(byte[] key, int hash) {
+        for (int slot = hash & tableMask; ; slot = (slot + 1) & tableMask) {
+            int entry = table[slot] - 1;
+            if (entry == NONE) {
+                return NONE;
+            }
+            if (entryHash[entry] == hash && keyEquals(entry, key)) {
+                return entry;
+            }
+        }
+    }
+
+    private void insertIntoTable(int entry) {
+        int slot = entryHash[entry] & tableMask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void removeFromTable(int entry) {
+        int hole = entryHash[entry] & tableMask;
+        while (table[hole] != entry + 1) {
+            hole = (hole + 1) & tableMask;
+        }
+        table[hole] = 0;
+        for (int slot = (hole + 1) & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+            int home = entryHash[table[slot] - 1] & tableMask;
+            if (((slot - home) & tableMask) >= ((slot - hole) & tableMask)) {
+                table[hole] = table[slot];
+                table[slot] = 0;
+                hole = slot;
+            }
+        }
+    }
+
+    private void linkAtFront(int entry) {
+        lruPrev[entry] = NONE;
+        lruNext[entry] = lruHead;
+        if (lruHead != NONE) {
+            lruPrev[lruHead] = entry;
+        }
+        lruHead = entry;
+        if (lruTail == NONE) {
+            lruTail = entry;
+        }
+    }
+
+    private void unlink(int entry) {
+        int previous = lruPrev[entry];
+        int next = lruNext[entry];
+        if (previous != NONE) {
+            lruNext[previous] = next;
+        } else {
+            lruHead = next;
+        }
+        if (next != NONE) {
+            lruPrev[next] = previous;
+        } else {
+            lruTail = previous;
+        }
+    }
+
+    private void moveToFront(int entry) {
+        if (lruHead != entry) {
+            unlink(entry);
+            linkAtFront(entry);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.quickcart.backened.store;
+
+import com.example.quickcart.backened.kafka.CartUpdateEventCodec;
+import com.example.quickcart.backened.model.Cart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * {@link CartStore} that keeps carts serialized in direct memory rather than as heap objects.
+ * <p>
+ * Carts are encoded with {@link CartUpdateEventCodec#encodeCart} and spread by key hash over
+ * independently locked {@link OffHeapCartShard}s, each of which evicts its least-recently-used carts
+ * once its entry or byte budget is spent. With a {@link CartWriteThroughQueue}, every save is also
+ * written through to Mongo asynchronously and misses are read back from it, so eviction loses
+ * nothing; without one, evicted carts are dropped, which suits tests and benchmarks that run with
+ * no database at all.
+ * <p>
+ * Saves are conditional like {@link MongoCartStore}'s: the resident copy is compared under the shard
+ * lock, and a cart that is not resident is compared with the write-through copy before the lock is
+ * taken, so the Mongo read never holds up the shard. The write-through is queued under that lock
+ * before the shard changes, so a save the queue refuses leaves the resident copy as it was.
+ */
+public class OffHeapCartStore implements CartStore {
+    private static final int CHUNK_BYTES = 4 << 20;
+
+    private final OffHeapCartShard[] shards;
+    private final int shardShift;
+    private final CartWriteThroughQueue writeThrough;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public OffHeapCartStore(int shardCount, int maxEntries, long maxBytes, CartWriteThroughQueue writeThrough,
+                            MeterRegistry meterRegistry) {
+        int count = Integer.highestOneBit(Math.max(shardCount, 1));
+        this.shards = new OffHeapCartShard[count];
+        this.shardShift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            shards[i] = new OffHeapCartShard(Math.max(1, maxEntries / count), Math.max(1, maxBytes / count), CHUNK_BYTES);
+        }
+        this.writeThrough = writeThrough;
+
+        hits = meterRegistry.counter("cart.store.offheap.requests", "result", "hit");
+        misses = meterRegistry.counter("cart.store.offheap.requests", "result", "miss");
+        evictions = meterRegistry.counter("cart.store.offheap.evictions");
+        Gauge.builder("cart.store.offheap.entries", this, OffHeapCartStore::size).register(meterRegistry);
+        Gauge.builder("cart.store.offheap.used-bytes", this, OffHeapCartStore::usedBytes).register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Cart> findById(String sessionId) {
+        byte[] key = keyOf(sessionId);
+        int hash = hash(key);
+        byte[] value = shardFor(hash).get(key, hash);
+        if (value != null) {
+            hits.increment();
+            return Optional.of(CartUpdateEventCodec.decodeCart(value));
+        }
+        misses.increment();
+        if (writeThrough == null) {
+            return Optional.empty();
+        }
+
+        Optional<Cart> cart = writeThrough.find(sessionId);
+        cart.ifPresent(found -> shardFor(hash).put(key, hash, CartUpdateEventCodec.encodeCart(found), false, this::onEvict));
+        return cart;
+    }
+
+    @Override
+    public Cart save(Cart cart, long readVersion) {
+        byte[] key = keyOf(cart.getId());
+        int hash = hash(key);
+        byte[] value = CartUpdateEventCodec.encodeCart(cart);
+        OffHeapCartShard shard = shardFor(hash);
+        Optional<Cart> stored = shard.get(key, hash) == null && writeThrough != null
+                ? writeThrough.find(cart.getId())
+                : Optional.empty();
+        boolean resident;
+        synchronized (shard) {
+            byte[] current = shard.get(key, hash);
+            long storedVersion = current != null
+                    ? CartUpdateEventCodec.decodeCartVersion(current)
+                    : stored.map(Cart::getVersion).orElse(readVersion);
+            if (storedVersion != readVersion) {
+                throw new CartConflictException(cart.getId());
+            }
+            if (writeThrough != null) {
+                writeThrough.write(cart.getId(), value);
+            }
+            resident = shard.put(key, hash, value, true, this::onEvict);
+        }
+        if (!resident && writeThrough == null) {
+            throw new IllegalStateException("Cart " + cart.getId() + " does not fit in an off-heap shard");
+        }
+        return cart;
+    }
+
+    public int size() {
+        int size = 0;
+        for (OffHeapCartShard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public long usedBytes() {
+        long usedBytes = 0;
+        for (OffHeapCartShard shard : shards) {
+            usedBytes += shard.usedBytes();
+        }
+        return usedBytes;
+    }
+
+    // Called by the container on shutdown so queued writes reach the backing store
+    public void close() throws InterruptedException {
+        if (writeThrough != null) {
+            writeThrough.close();
+        }
+    }
+
+    private void onEvict(byte[] key, byte[] value) {
+        evictions.increment();
+    }
+
+    // Top bits pick the shard; the shard's own table indexes with the low bits
+    private OffHeapCartShard shardFor(int hash) {
+        return shards[(hash >>> shardShift) & (shards.length - 1)];
+    }
+
+    private static byte[] keyOf(String sessionId) {
+        return sessionId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
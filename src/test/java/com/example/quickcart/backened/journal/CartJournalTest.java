@@ -0,0 +1,204 @@
+package com.example.quickcart.backened.journal;
+
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.service.CartUpdatePublisher;
+import com.example.quickcart.backened.store.CartConflictException;
+import com.example.quickcart.backened.store.CartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CartJournalTest {
+
+	private static final String SESSION_ID = "3f2b8c1e-5d6a-4c7b-9e0f-1a2b3c4d5e6f";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void appendedRecordsAreReadBackAcrossSegmentsFromAnOffset() throws Exception {
+		CartJournal journal = openJournal(2);
+		assertTrue(journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 1, "1", 2, 2999.00));
+		assertTrue(journal.append(CartEventType.QUANTITY_INCREASED, SESSION_ID, 2, "1", 3, 2999.00));
+		assertTrue(journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 3, "13", 1, 12999.999));
+		assertTrue(journal.append(CartEventType.ITEM_REMOVED, SESSION_ID, 4, "1", 0, 2999.00));
+		journal.stop();
+
+		List<String> records = new ArrayList<>();
+		long next = new CartJournalReader(directory).read(1, record -> records.add(
+				record.getSequence() + ":" + record.getType() + ":v" + record.getCartVersion() + ":" + record.getProductId()
+						+ ":" + record.getQuantity() + ":" + record.getPriceAtAdd()));
+
+		assertEquals(List.of("1:QUANTITY_INCREASED:v2:1:3:2999.0", "2:ITEM_ADDED:v3:13:1:12999.999",
+				"3:ITEM_REMOVED:v4:1:0:2999.0"), records);
+		assertEquals(4, next);
+	}
+
+	@Test
+	void reopenedJournalContinuesAfterLastCommittedRecord() throws Exception {
+		CartJournal journal = openJournal(8);
+		journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 1, "1", 1, 10.0);
+		journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 2, "2", 1, 10.0);
+		journal.stop();
+
+		CartJournal reopened = openJournal(8);
+		reopened.append(CartEventType.ITEM_ADDED, SESSION_ID, 3, "3", 1, 10.0);
+		reopened.stop();
+
+		List<Long> sequences = new ArrayList<>();
+		new CartJournalReader(directory).read(0, record -> sequences.add(record.getSequence()));
+		assertEquals(List.of(0L, 1L, 2L), sequences);
+	}
+
+	@Test
+	void oversizedIdsAreDroppedInsteadOfTruncated() throws Exception {
+		CartJournal journal = openJournal(8);
+
+		assertFalse(journal.append(CartEventType.ITEM_ADDED, "x".repeat(53), 1, "1", 1, 10.0));
+		journal.stop();
+	}
+
+	@Test
+	void rebuildFromLaterOffsetAppliesChangesOntoStoredCart() throws Exception {
+		InMemoryCartStore cartStore = new InMemoryCartStore();
+		cartStore.seed(storedCart(5, Instant.now().minus(Duration.ofMinutes(1)),
+				new Cart.CartItem("1", 2, 10.0), new Cart.CartItem("2", 1, 5.0)));
+		CartJournal journal = openJournal(8);
+		journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 6, "3", 1, 7.0);
+		journal.append(CartEventType.QUANTITY_INCREASED, SESSION_ID, 7, "1", 4, 10.0);
+		journal.stop();
+
+		assertEquals(1, replayer(cartStore, mock(CartUpdatePublisher.class)).restoreCarts(1));
+
+		Cart cart = cartStore.carts.get(SESSION_ID);
+		assertEquals(List.of(new Cart.CartItem("1", 4, 10.0), new Cart.CartItem("2", 1, 5.0)), cart.getItems());
+		assertEquals(45.0, cart.getTotalAmount());
+		assertEquals(7L, cart.getVersion());
+	}
+
+	@Test
+	void rebuildSkipsRecordsOlderThanStoredCart() throws Exception {
+		InMemoryCartStore cartStore = new InMemoryCartStore();
+		cartStore.seed(storedCart(7, Instant.now().minus(Duration.ofMinutes(1)), new Cart.CartItem("1", 2, 12.5)));
+		CartJournal journal = openJournal(8);
+		journal.append(CartEventType.QUANTITY_INCREASED, SESSION_ID, 6, "1", 3, 10.0);
+		journal.stop();
+
+		assertEquals(0, replayer(cartStore, mock(CartUpdatePublisher.class)).restoreCarts(0));
+		assertEquals(0, cartStore.saves);
+	}
+
+	@Test
+	void replayLeavesCartsThatAlreadyHaveTheLastJournaledMutationUntouched() throws Exception {
+		// CartService stamps lastUpdated before the save and the journal record after it
+		Instant savedAt = Instant.now().minus(Duration.ofSeconds(1));
+		InMemoryCartStore cartStore = new InMemoryCartStore();
+		cartStore.seed(storedCart(2, savedAt, new Cart.CartItem("1", 2, 10.0)));
+		CartJournal journal = openJournal(8);
+		journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 1, "1", 1, 10.0);
+		journal.append(CartEventType.QUANTITY_INCREASED, SESSION_ID, 2, "1", 2, 10.0);
+		journal.stop();
+		CartUpdatePublisher publisher = mock(CartUpdatePublisher.class);
+
+		assertEquals(0, replayer(cartStore, publisher).restoreCarts(0));
+		assertEquals(1, replayer(cartStore, publisher).refeedCartUpdates(0));
+
+		assertEquals(0, cartStore.saves);
+		ArgumentCaptor<Cart> snapshot = ArgumentCaptor.forClass(Cart.class);
+		verify(publisher, times(1)).publish(eq(SESSION_ID), snapshot.capture());
+		assertEquals(2L, snapshot.getValue().getVersion());
+		assertEquals(savedAt, snapshot.getValue().getLastUpdated());
+	}
+
+	@Test
+	void refeedPublishesOneFullSnapshotPerSession() throws Exception {
+		InMemoryCartStore cartStore = new InMemoryCartStore();
+		cartStore.seed(storedCart(5, Instant.now().minus(Duration.ofMinutes(1)), new Cart.CartItem("1", 2, 10.0)));
+		CartJournal journal = openJournal(8);
+		journal.append(CartEventType.ITEM_ADDED, SESSION_ID, 6, "3", 1, 7.0);
+		journal.append(CartEventType.QUANTITY_INCREASED, SESSION_ID, 7, "3", 2, 7.0);
+		journal.stop();
+		CartUpdatePublisher publisher = mock(CartUpdatePublisher.class);
+
+		long published = replayer(cartStore, publisher).refeedCartUpdates(1);
+
+		ArgumentCaptor<Cart> snapshot = ArgumentCaptor.forClass(Cart.class);
+		assertEquals(1, published);
+		verify(publisher, times(1)).publish(eq(SESSION_ID), snapshot.capture());
+		assertEquals(List.of(new Cart.CartItem("1", 2, 10.0), new Cart.CartItem("3", 2, 7.0)), snapshot.getValue().getItems());
+		assertEquals(7L, snapshot.getValue().getVersion());
+		assertEquals(0, cartStore.saves);
+	}
+
+	private CartJournalReplayer replayer(CartStore cartStore, CartUpdatePublisher publisher) {
+		CartJournalReplayer replayer = new CartJournalReplayer(cartStore, publisher);
+		ReflectionTestUtils.setField(replayer, "directory", directory.toString());
+		return replayer;
+	}
+
+	private static Cart storedCart(long version, Instant lastUpdated, Cart.CartItem... items) {
+		List<Cart.CartItem> lines = new ArrayList<>(List.of(items));
+		double total = lines.stream().mapToDouble(item -> item.getPriceAtAdd() * item.getQuantity()).sum();
+		return new Cart(SESSION_ID, lines, total, lastUpdated, version);
+	}
+
+	private CartJournal openJournal(int recordsPerSegment) throws Exception {
+		CartJournal journal = new CartJournal(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(journal, "enabled", true);
+		ReflectionTestUtils.setField(journal, "directory", directory.toString());
+		ReflectionTestUtils.setField(journal, "recordsPerSegment", recordsPerSegment);
+		ReflectionTestUtils.setField(journal, "queueCapacity", 16);
+		ReflectionTestUtils.setField(journal, "forceIntervalMs", 1000L);
+		journal.start();
+		return journal;
+	}
+
+	private static final class InMemoryCartStore implements CartStore {
+		private final Map<String, Cart> carts = new HashMap<>();
+		private int saves;
+
+		void seed(Cart cart) {
+			carts.put(cart.getId(), cart);
+		}
+
+		// Hands out copies so the test sees only what was saved, not what the replayer mutated
+		@Override
+		public Optional<Cart> findById(String sessionId) {
+			return Optional.ofNullable(carts.get(sessionId))
+					.map(cart -> new Cart(cart.getId(), new ArrayList<>(cart.getItems().stream()
+							.map(item -> new Cart.CartItem(item.getProductId(), item.getQuantity(), item.getPriceAtAdd()))
+							.toList()), cart.getTotalAmount(), cart.getLastUpdated(), cart.getVersion()));
+		}
+
+		@Override
+		public Cart save(Cart cart, long readVersion) {
+			Cart stored = carts.get(cart.getId());
+			if (stored != null && stored.getVersion() != readVersion) {
+				throw new CartConflictException(cart.getId());
+			}
+			saves++;
+			carts.put(cart.getId(), cart);
+			return cart;
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.example.quickcart.backened.kafka;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.function.Function;
+
+/**
+ * Compares bytes per event and encode/decode cost of the binary cart codec against the
+ * Spring JSON serializer path. Run after {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<deps> com.example.quickcart.backened.kafka.CartUpdateEventCodecBenchmark}.
+ */
+public class CartUpdateEventCodecBenchmark {
+
+	private static final String TOPIC = "cart-updates";
+	private static final int WARMUP_ITERATIONS = 200_000;
+	private static final int MEASURED_ITERATIONS = 1_000_000;
+
+	public static void main(String[] args) {
+		CartUpdateEvent event = CartUpdateEventCodecTest.sampleEvent();
+		CartUpdateEventSerializer binarySerializer = new CartUpdateEventSerializer();
+		CartUpdateEventDeserializer binaryDeserializer = new CartUpdateEventDeserializer();
+		JsonSerializer<CartUpdateEvent> jsonSerializer = new JsonSerializer<>();
+		JsonDeserializer<CartUpdateEvent> jsonDeserializer = new JsonDeserializer<>(CartUpdateEvent.class, false);
+
+		byte[] binary = binarySerializer.serialize(TOPIC, event);
+		byte[] json = jsonSerializer.serialize(TOPIC, event);
+		System.out.printf("bytes/event      binary=%d json=%d%n", binary.length, json.length);
+
+		report("encode", measure(e -> binarySerializer.serialize(TOPIC, e), event),
+				measure(e -> jsonSerializer.serialize(TOPIC, e), event));
+		report("decode", measure(b -> binaryDeserializer.deserialize(TOPIC, b), binary),
+				measure(b -> jsonDeserializer.deserialize(TOPIC, b), json));
+	}
+
+	private static <T> double measure(Function<T, Object> operation, T input) {
+		Object sink = null;
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			sink = operation.apply(input);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			sink = operation.apply(input);
+		}
+		long elapsed = System.nanoTime() - start;
+		if (sink == null) {
+			throw new IllegalStateException("Benchmark produced no output");
+		}
+		return (double) elapsed / MEASURED_ITERATIONS;
+	}
+
+	private static void report(String operation, double binaryNanos, double jsonNanos) {
+		System.out.printf("%-16s binary=%.1f ns json=%.1f ns (%.1fx)%n",
+				operation + " ns/op", binaryNanos, jsonNanos, jsonNanos / binaryNanos);
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.example.quickcart.backened.kafka;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartUpdateEventCodecTest {
+
+	private final CartUpdateEventSerializer serializer = new CartUpdateEventSerializer();
+	private final CartUpdateEventDeserializer deserializer = new CartUpdateEventDeserializer();
+
+	@Test
+	void binaryRoundTripPreservesCart() {
+		CartUpdateEvent event = sampleEvent();
+
+		CartUpdateEvent decoded = deserializer.deserialize("cart-updates", serializer.serialize("cart-updates", event));
+
+		assertEquals(event, decoded);
+	}
+
+	@Test
+	void legacyJsonPayloadIsStillReadable() {
+		CartUpdateEvent event = sampleEvent();
+		byte[] json;
+		try (JsonSerializer<CartUpdateEvent> jsonSerializer = new JsonSerializer<>()) {
+			json = jsonSerializer.serialize("cart-updates", event);
+		}
+
+		assertEquals(event, deserializer.deserialize("cart-updates", json));
+	}
+
+	@Test
+	void binaryIsSmallerThanJson() {
+		CartUpdateEvent event = sampleEvent();
+		byte[] binary = serializer.serialize("cart-updates", event);
+		byte[] json;
+		try (JsonSerializer<CartUpdateEvent> jsonSerializer = new JsonSerializer<>()) {
+			json = jsonSerializer.serialize("cart-updates", event);
+		}
+
+		assertTrue(binary.length * 3 < json.length, binary.length + " vs " + json.length);
+	}
+
+	@Test
+	void decodedProductIdsAreInterned() {
+		CartUpdateEvent first = CartUpdateEventCodec.decode(CartUpdateEventCodec.encode(sampleEvent()));
+		CartUpdateEvent second = CartUpdateEventCodec.decode(CartUpdateEventCodec.encode(sampleEvent()));
+
+		assertSame(first.getCart().getItems().get(0).getProductId(), second.getCart().getItems().get(0).getProductId());
+	}
+
+	@Test
+	void eventWithoutCartRoundTrips() {
+		CartUpdateEvent decoded = CartUpdateEventCodec.decode(CartUpdateEventCodec.encode(new CartUpdateEvent("session-1", null)));
+
+		assertEquals("session-1", decoded.getSessionId());
+		assertNull(decoded.getCart());
+	}
+
+	@Test
+	void corruptItemCountIsRejected() {
+		byte[] data = CartUpdateEventCodec.encode(new CartUpdateEvent("s", new Cart("s", List.of(), 0.0, Instant.EPOCH, 0L)));
+		// The empty item list is the final byte; replace it with a huge zig-zag varint
+		byte[] corrupt = Arrays.copyOf(data, data.length + 4);
+		corrupt[data.length - 1] = (byte) 0xFE;
+		corrupt[data.length] = (byte) 0xFF;
+		corrupt[data.length + 1] = (byte) 0xFF;
+		corrupt[data.length + 2] = (byte) 0xFF;
+		corrupt[data.length + 3] = (byte) 0x0F;
+
+		assertThrows(IllegalArgumentException.class, () -> CartUpdateEventCodec.decode(corrupt));
+	}
+
+	@Test
+	void overlongStringLengthIsRejected() {
+		byte[] corrupt = {CartUpdateEventCodec.MAGIC, CartUpdateEventCodec.SCHEMA_VERSION,
+				(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x0F};
+
+		assertThrows(IllegalArgumentException.class, () -> CartUpdateEventCodec.decode(corrupt));
+	}
+
+	@Test
+	void cartRoundTripKeepsMissingTimestampAndUnroundedAmounts() {
+		List<Cart.CartItem> items = new ArrayList<>();
+		items.add(new Cart.CartItem("1", 3, 0.1 + 0.2));
+		items.add(new Cart.CartItem("2", 1, 19.999));
+		Cart cart = new Cart("s", items, 0.1 * 3 + 19.999, null, 4L);
+
+		Cart decoded = CartUpdateEventCodec.decodeCart(CartUpdateEventCodec.encodeCart(cart));
+
+		assertEquals(cart, decoded);
+		assertNull(decoded.getLastUpdated());
+	}
+
+	@Test
+	void schemaVersionOnePayloadIsStillReadable() {
+		// version 1, id "s", version 2, lastUpdated 1000 ms, total 12.34, one item "p" x 1 at 12.34
+		byte[] legacy = {1, 2, 's', 4, (byte) 0xD0, 0x0F, (byte) 0xA4, 0x13, 2, 2, 'p', 2, (byte) 0xA4, 0x13};
+
+		Cart decoded = CartUpdateEventCodec.decodeCart(legacy);
+
+		assertEquals(new Cart("s", List.of(new Cart.CartItem("p", 1, 12.34)), 12.34, Instant.ofEpochMilli(1000), 2L), decoded);
+	}
+
+	static CartUpdateEvent sampleEvent() {
+		List<Cart.CartItem> items = new ArrayList<>();
+		items.add(new Cart.CartItem("1", 2, 2999.00));
+		items.add(new Cart.CartItem("13", 1, 12999.00));
+		items.add(new Cart.CartItem("6", 5, 499.99));
+		Cart cart = new Cart("3f2b8c1e-5d6a-4c7b-9e0f-1a2b3c4d5e6f", items, 21496.95,
+				Instant.ofEpochMilli(1_760_000_000_123L), 7L);
+		return new CartUpdateEvent(cart.getId(), cart);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.example.quickcart.backened.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DependencyGuardTest {
+
+	private static final Predicate<Throwable> DEPENDENCY_FAILURE = e -> e instanceof IllegalStateException;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void opensAfterConsecutiveFailuresAndRejectsWithoutCalling() {
+		DependencyGuard guard = new DependencyGuard("mongo", 10, 2, Duration.ofMinutes(1), DEPENDENCY_FAILURE, meterRegistry);
+
+		assertThrows(IllegalStateException.class, () -> guard.run(DependencyGuardTest::fail));
+		assertThrows(IllegalStateException.class, () -> guard.run(DependencyGuardTest::fail));
+
+		assertEquals(DependencyGuard.State.OPEN, guard.getState());
+		assertThrows(DependencyUnavailableException.class, () -> guard.call(() -> "unreachable"));
+		assertEquals(1.0, meterRegistry.get("dependency.guard.rejections").tag("reason", "circuit_open").counter().count());
+	}
+
+	@Test
+	void halfOpenTrialSuccessClosesCircuit() throws InterruptedException {
+		DependencyGuard guard = new DependencyGuard("kafka", 10, 1, Duration.ofMillis(20), DEPENDENCY_FAILURE, meterRegistry);
+		assertThrows(IllegalStateException.class, () -> guard.run(DependencyGuardTest::fail));
+		Thread.sleep(40);
+
+		assertEquals("ok", guard.call(() -> "ok"));
+
+		assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+	}
+
+	@Test
+	void rejectsWhenBulkheadIsFull() {
+		DependencyGuard guard = new DependencyGuard("mongo", 1, 5, Duration.ofMinutes(1), DEPENDENCY_FAILURE, meterRegistry);
+		guard.acquire();
+
+		assertThrows(DependencyUnavailableException.class, guard::acquire);
+
+		guard.release();
+		assertEquals("ok", guard.call(() -> "ok"));
+	}
+
+	@Test
+	void errorsNotCausedByTheDependencyLeaveTheCircuitClosed() {
+		DependencyGuard guard = new DependencyGuard("mongo", 10, 1, Duration.ofMinutes(1), DEPENDENCY_FAILURE, meterRegistry);
+
+		assertThrows(IllegalArgumentException.class, () -> guard.run(() -> {
+			throw new IllegalArgumentException("bad mapping");
+		}));
+
+		assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+		assertEquals("ok", guard.call(() -> "ok"));
+	}
+
+	@Test
+	void errorDuringHalfOpenTrialReleasesTheTrial() throws InterruptedException {
+		DependencyGuard guard = new DependencyGuard("kafka", 10, 1, Duration.ofMillis(20), DEPENDENCY_FAILURE, meterRegistry);
+		assertThrows(IllegalStateException.class, () -> guard.run(DependencyGuardTest::fail));
+		Thread.sleep(40);
+
+		assertThrows(StackOverflowError.class, () -> guard.run(() -> {
+			throw new StackOverflowError();
+		}));
+
+		assertEquals("ok", guard.call(() -> "ok"));
+		assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+	}
+
+	private static void fail() {
+		throw new IllegalStateException("boom");
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.example.quickcart.backened.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlServiceTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private AdmissionControlService admissionControl;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		admissionControl = new AdmissionControlService(meterRegistry);
+		ReflectionTestUtils.setField(admissionControl, "sessionRequestsPerSecond", 0.001);
+		ReflectionTestUtils.setField(admissionControl, "sessionBurst", 3.0);
+		ReflectionTestUtils.setField(admissionControl, "ipRequestsPerSecond", 0.001);
+		ReflectionTestUtils.setField(admissionControl, "ipBurst", 5.0);
+		ReflectionTestUtils.setField(admissionControl, "maxTrackedKeys", 1000);
+		ReflectionTestUtils.setField(admissionControl, "maxConcurrentRequests", 2);
+		admissionControl.initLimits();
+	}
+
+	@Test
+	void sessionIsThrottledOnceBurstIsSpentWithoutAffectingOthers() {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(admissionControl.tryAdmitSession("noisy"));
+		}
+		assertFalse(admissionControl.tryAdmitSession("noisy"));
+		assertTrue(admissionControl.tryAdmitSession("quiet"));
+		assertEquals(1.0, rejections("session_rate"));
+	}
+
+	@Test
+	void requestsBeyondGlobalLimitAreShedUntilSlotsFreeUp() {
+		assertTrue(admissionControl.tryEnterRequest());
+		assertTrue(admissionControl.tryEnterRequest());
+		assertFalse(admissionControl.tryEnterRequest());
+
+		admissionControl.exitRequest();
+
+		assertTrue(admissionControl.tryEnterRequest());
+		assertEquals(1.0, rejections("concurrency"));
+	}
+
+	private double rejections(String reason) {
+		return meterRegistry.get("cart.admission.rejections").tag("reason", reason).counter().count();
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.dto.CartAnalyticsSnapshot;
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CartAnalyticsServiceTest {
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T12:00:30Z"));
+	private CartAnalyticsService analytics;
+
+	@BeforeEach
+	void setUp() {
+		analytics = new CartAnalyticsService(clock);
+		ReflectionTestUtils.setField(analytics, "bucketSeconds", 60L);
+		ReflectionTestUtils.setField(analytics, "slidingWindowBuckets", 5);
+		ReflectionTestUtils.setField(analytics, "topN", 2);
+		ReflectionTestUtils.setField(analytics, "maxTrackedSessions", 100);
+		ReflectionTestUtils.setField(analytics, "maxTrackedProducts", 100);
+		analytics.initWindows();
+	}
+
+	@Test
+	void derivesAddsAndRemovesFromSuccessiveSnapshots() {
+		analytics.recordBatch(List.of(
+				event("s1", 3000, item("1", 2, 1000)),
+				event("s1", 1500, item("1", 1, 1000), item("2", 1, 500)),
+				event("s2", 60000, item("3", 4, 15000))));
+
+		CartAnalyticsSnapshot.WindowStats sliding = analytics.getSnapshot().getSlidingWindow();
+		assertEquals(7, sliding.getItemsAdded());
+		assertEquals(1, sliding.getItemsRemoved());
+		assertEquals(2, sliding.getActiveCarts());
+		assertEquals(1L, sliding.getCartValueDistribution().get("1000-5000"));
+		assertEquals(1L, sliding.getCartValueDistribution().get(">=50000"));
+	}
+
+	@Test
+	void topProductsAreRankedByAddsAndCappedAtN() {
+		analytics.recordBatch(List.of(
+				event("s1", 0, item("1", 1, 0)),
+				event("s2", 0, item("2", 5, 0)),
+				event("s3", 0, item("3", 3, 0))));
+
+		List<CartAnalyticsSnapshot.ProductActivity> top = analytics.getSnapshot().getSlidingWindow().getTopProducts();
+		assertEquals(2, top.size());
+		assertEquals("2", top.get(0).getProductId());
+		assertEquals("3", top.get(1).getProductId());
+	}
+
+	@Test
+	void windowsRollForwardWithoutNewEvents() {
+		analytics.recordBatch(List.of(event("s1", 0, item("1", 3, 0))));
+		assertEquals(3, analytics.getSnapshot().getCurrentWindow().getItemsAdded());
+
+		clock.advance(Duration.ofSeconds(60));
+
+		CartAnalyticsSnapshot snapshot = analytics.getSnapshot();
+		assertEquals(0, snapshot.getCurrentWindow().getItemsAdded());
+		assertEquals(3, snapshot.getSlidingWindow().getItemsAdded());
+	}
+
+	private CartUpdateEvent event(String sessionId, double total, Cart.CartItem... items) {
+		Cart cart = new Cart(sessionId, new ArrayList<>(List.of(items)), total, clock.instant(), 1L);
+		return new CartUpdateEvent(sessionId, cart);
+	}
+
+	private static Cart.CartItem item(String productId, int quantity, double price) {
+		return new Cart.CartItem(productId, quantity, price);
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.model.Cart;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartRepricingServiceTest {
+
+	private static final Instant READ_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+	private static final Instant REPRICED_AT = Instant.ofEpochMilli(1_700_000_060_000L);
+
+	@Test
+	void repricesChangedLinesAndRecomputesTotal() {
+		Cart cart = cart(new Cart.CartItem("p1", 2, 10.0), new Cart.CartItem("p2", 1, 5.0));
+
+		boolean changed = CartRepricingService.repriceCart(cart, Map.of("p1", 12.5, "p3", 1.0), REPRICED_AT);
+
+		assertTrue(changed);
+		assertEquals(12.5, cart.getItems().get(0).getPriceAtAdd());
+		assertEquals(5.0, cart.getItems().get(1).getPriceAtAdd());
+		assertEquals(30.0, cart.getTotalAmount());
+		assertEquals(REPRICED_AT, cart.getLastUpdated());
+		assertEquals(4L, cart.getVersion());
+	}
+
+	@Test
+	void leavesCartUntouchedWhenPricesAlreadyCurrent() {
+		Cart cart = cart(new Cart.CartItem("p1", 2, 10.0));
+
+		boolean changed = CartRepricingService.repriceCart(cart, Map.of("p1", 10.0), REPRICED_AT);
+
+		assertFalse(changed);
+		assertEquals(20.0, cart.getTotalAmount());
+		assertEquals(READ_AT, cart.getLastUpdated());
+		assertEquals(3L, cart.getVersion());
+	}
+
+	private static Cart cart(Cart.CartItem... items) {
+		List<Cart.CartItem> lines = new ArrayList<>(List.of(items));
+		double total = lines.stream().mapToDouble(item -> item.getPriceAtAdd() * item.getQuantity()).sum();
+		return new Cart("session-1", lines, total, READ_AT, 3L);
+	}
+
+}
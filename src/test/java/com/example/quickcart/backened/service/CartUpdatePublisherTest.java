@@ -0,0 +1,99 @@
+package com.example.quickcart.backened.service;
+
+import com.example.quickcart.backened.dto.CartUpdateEvent;
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.resilience.DependencyGuard;
+import com.example.quickcart.backened.resilience.DependencyGuards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartUpdatePublisherTest {
+
+	private static final String SESSION_ID = "session-1";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<CompletableFuture<SendResult<String, CartUpdateEvent>>> sends = new ArrayList<>();
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, CartUpdateEvent> kafkaTemplate = mock(KafkaTemplate.class);
+	private CartUpdatePublisher publisher;
+
+	@BeforeEach
+	void setUp() {
+		when(kafkaTemplate.send(anyString(), anyString(), any(CartUpdateEvent.class))).thenAnswer(invocation -> {
+			CompletableFuture<SendResult<String, CartUpdateEvent>> future = new CompletableFuture<>();
+			synchronized (sends) {
+				sends.add(future);
+			}
+			return future;
+		});
+		DependencyGuards guards = mock(DependencyGuards.class);
+		when(guards.getKafka()).thenReturn(new DependencyGuard("kafka", 10, 5, Duration.ofMinutes(1),
+				e -> e instanceof TimeoutException, meterRegistry));
+
+		publisher = new CartUpdatePublisher(kafkaTemplate, guards, meterRegistry);
+		ReflectionTestUtils.setField(publisher, "queueCapacity", 10);
+		ReflectionTestUtils.setField(publisher, "maxDelayedSessions", 10);
+		ReflectionTestUtils.setField(publisher, "retryIntervalMs", 60_000L);
+		publisher.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		publisher.stop();
+	}
+
+	@Test
+	void failedOlderSendIsNotParkedOnceANewerOneWasSent() {
+		publisher.publish(SESSION_ID, cart(1));
+		publisher.publish(SESSION_ID, cart(2));
+		verify(kafkaTemplate, timeout(1000).times(2)).send(eq("cart-updates"), eq(SESSION_ID), any(CartUpdateEvent.class));
+
+		sends.get(1).complete(null);
+		sends.get(0).completeExceptionally(new TimeoutException("broker slow"));
+
+		assertEquals(0.0, meterRegistry.get("cart.updates.delayed").gauge().value());
+	}
+
+	@Test
+	void failedNewestSendIsParkedForRetry() {
+		publisher.publish(SESSION_ID, cart(1));
+		publisher.publish(SESSION_ID, cart(2));
+		verify(kafkaTemplate, timeout(1000).times(2)).send(eq("cart-updates"), eq(SESSION_ID), any(CartUpdateEvent.class));
+
+		sends.get(0).complete(null);
+		sends.get(1).completeExceptionally(new TimeoutException("broker slow"));
+
+		assertEquals(1.0, meterRegistry.get("cart.updates.delayed").gauge().value());
+		ReflectionTestUtils.invokeMethod(publisher, "retryDelayedUpdates");
+		ArgumentCaptor<CartUpdateEvent> retried = ArgumentCaptor.forClass(CartUpdateEvent.class);
+		verify(kafkaTemplate, timeout(1000).times(3)).send(eq("cart-updates"), eq(SESSION_ID), retried.capture());
+		assertEquals(2L, retried.getValue().getCart().getVersion());
+	}
+
+	private static Cart cart(long version) {
+		return new Cart(SESSION_ID, new ArrayList<>(), 0.0, Instant.ofEpochMilli(1_700_000_000_000L), version);
+	}
+
+}
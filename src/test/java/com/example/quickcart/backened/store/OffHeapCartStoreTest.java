@@ -0,0 +1,226 @@
+package com.example.quickcart.backened.store;
+
+import com.example.quickcart.backened.kafka.CartUpdateEventCodec;
+import com.example.quickcart.backened.model.Cart;
+import com.example.quickcart.backened.resilience.DependencyUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCartStoreTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void roundTripsCartsSpanningSeveralBlocks() {
+		OffHeapCartStore store = new OffHeapCartStore(4, 100, 1 << 20, null, meterRegistry);
+		Cart cart = cart("session-1", 40);
+
+		store.save(cart);
+		Cart loaded = store.findById("session-1").orElseThrow();
+
+		assertEquals(cart.getItems(), loaded.getItems());
+		assertEquals(cart.getTotalAmount(), loaded.getTotalAmount());
+		assertEquals(cart.getVersion(), loaded.getVersion());
+		assertEquals(cart.getLastUpdated(), loaded.getLastUpdated());
+		assertFalse(store.findById("session-2").isPresent());
+	}
+
+	@Test
+	void overwritesAndKeepsIndexConsistentAcrossChurn() {
+		OffHeapCartStore store = new OffHeapCartStore(2, 4_000, 8 << 20, null, meterRegistry);
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 1_000; i++) {
+				Cart cart = cart("session-" + i, 1 + (i + round) % 5);
+				cart.setVersion(round);
+				store.save(cart);
+			}
+		}
+
+		assertEquals(1_000, store.size());
+		for (int i = 0; i < 1_000; i++) {
+			Cart loaded = store.findById("session-" + i).orElseThrow();
+			assertEquals(2L, loaded.getVersion());
+			assertEquals(1 + (i + 2) % 5, loaded.getItems().size());
+		}
+	}
+
+	@Test
+	void writesEverySaveThroughAndReadsEvictedCartsBack() throws InterruptedException {
+		InMemoryCartStore backingStore = new InMemoryCartStore();
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(backingStore, 16, 100, 60_000, meterRegistry);
+		OffHeapCartStore store = new OffHeapCartStore(1, 2, 1 << 20, writeThrough, meterRegistry);
+
+		store.save(cart("a", 1));
+		store.save(cart("b", 1));
+		store.findById("a");
+		store.save(cart("c", 2));
+		store.close();
+
+		assertEquals(Set.of("a", "b", "c"), backingStore.carts.keySet());
+		assertEquals(1.0, meterRegistry.get("cart.store.offheap.evictions").counter().count());
+		assertTrue(store.findById("b").isPresent());
+		assertEquals(2, store.size());
+	}
+
+	@Test
+	void failedWritesStayPendingAndReadable() throws InterruptedException {
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(new FailingCartStore(), 16, 1, 60_000, meterRegistry);
+		OffHeapCartStore store = new OffHeapCartStore(1, 1, 1 << 20, writeThrough, meterRegistry);
+
+		store.save(cart("a", 3));
+		Cart changed = cart("a", 4);
+		changed.setVersion(4);
+		store.save(changed);
+		store.close();
+
+		assertEquals(4, writeThrough.find("a").orElseThrow().getItems().size());
+		assertThrows(DependencyUnavailableException.class, () -> store.save(cart("b", 1)));
+	}
+
+	@Test
+	void savesRefusedByAFullWriteThroughLeaveTheResidentCartAlone() throws InterruptedException {
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(new FailingCartStore(), 16, 1, 60_000, meterRegistry);
+		OffHeapCartStore store = new OffHeapCartStore(1, 10, 1 << 20, writeThrough, meterRegistry);
+		store.save(cart("a", 1));
+
+		assertThrows(DependencyUnavailableException.class, () -> store.save(cart("b", 2)));
+		store.close();
+
+		assertFalse(store.findById("b").isPresent());
+		assertEquals(1, store.size());
+		assertEquals(1, writeThrough.pendingWrites());
+	}
+
+	@Test
+	void fullQueueLeavesWritesPendingWithoutBlockingTheCaller() throws InterruptedException {
+		CountDownLatch backingStoreStalled = new CountDownLatch(1);
+		InMemoryCartStore backingStore = new InMemoryCartStore(backingStoreStalled);
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(backingStore, 1, 100, 60_000, meterRegistry);
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			for (String sessionId : List.of("a", "b", "c")) {
+				writeThrough.write(sessionId, CartUpdateEventCodec.encodeCart(cart(sessionId, 1)));
+			}
+		});
+		assertTrue(meterRegistry.get("cart.store.write-through.deferred").counter().count() >= 1.0);
+		assertTrue(writeThrough.find("c").isPresent());
+
+		backingStoreStalled.countDown();
+		writeThrough.close();
+
+		assertEquals(Set.of("a", "b", "c"), backingStore.carts.keySet());
+		assertEquals(0, writeThrough.pendingWrites());
+	}
+
+	@Test
+	void rejectsSavesReadAtAnOlderVersion() {
+		OffHeapCartStore store = new OffHeapCartStore(1, 10, 1 << 20, null, meterRegistry);
+		store.save(cart("a", 1));
+
+		assertThrows(CartConflictException.class, () -> store.save(cart("a", 2)));
+		assertEquals(1, store.findById("a").orElseThrow().getItems().size());
+	}
+
+	@Test
+	void rejectsSavesOverANewerWriteThroughCopy() throws InterruptedException {
+		InMemoryCartStore backingStore = new InMemoryCartStore();
+		Cart newer = cart("a", 2);
+		newer.setVersion(7);
+		backingStore.carts.put("a", newer);
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(backingStore, 16, 100, 60_000, meterRegistry);
+		OffHeapCartStore store = new OffHeapCartStore(1, 10, 1 << 20, writeThrough, meterRegistry);
+
+		assertThrows(CartConflictException.class, () -> store.save(cart("a", 1)));
+		store.close();
+
+		assertEquals(7L, backingStore.carts.get("a").getVersion());
+	}
+
+	@Test
+	void writeThroughNeverReplacesANewerCopy() throws InterruptedException {
+		InMemoryCartStore backingStore = new InMemoryCartStore();
+		CartWriteThroughQueue writeThrough = new CartWriteThroughQueue(backingStore, 16, 100, 60_000, meterRegistry);
+		Cart newer = cart("a", 2);
+		newer.setVersion(5);
+
+		writeThrough.write("a", CartUpdateEventCodec.encodeCart(newer));
+		writeThrough.write("a", CartUpdateEventCodec.encodeCart(cart("a", 1)));
+		writeThrough.close();
+
+		assertEquals(5L, backingStore.carts.get("a").getVersion());
+	}
+
+	private static Cart cart(String sessionId, int itemCount) {
+		List<Cart.CartItem> items = new ArrayList<>();
+		double total = 0;
+		for (int i = 0; i < itemCount; i++) {
+			items.add(new Cart.CartItem("product-" + i, i + 1, 10.25 * (i + 1)));
+			total += 10.25 * (i + 1) * (i + 1);
+		}
+		return new Cart(sessionId, items, total, Instant.ofEpochMilli(1_700_000_000_000L), 3L);
+	}
+
+	private static final class InMemoryCartStore extends MongoCartStore {
+		private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+		private final CountDownLatch available;
+
+		InMemoryCartStore() {
+			this(new CountDownLatch(0));
+		}
+
+		InMemoryCartStore(CountDownLatch available) {
+			super(null, null, null);
+			this.available = available;
+		}
+
+		@Override
+		public Optional<Cart> findById(String sessionId) {
+			return Optional.ofNullable(carts.get(sessionId));
+		}
+
+		@Override
+		public void saveIfNewer(Cart cart) {
+			try {
+				available.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			carts.merge(cart.getId(), cart, (stored, saved) -> saved.getVersion() > stored.getVersion() ? saved : stored);
+		}
+	}
+
+	private static final class FailingCartStore extends MongoCartStore {
+
+		FailingCartStore() {
+			super(null, null, null);
+		}
+
+		@Override
+		public Optional<Cart> findById(String sessionId) {
+			return Optional.empty();
+		}
+
+		@Override
+		public void saveIfNewer(Cart cart) {
+			throw new IllegalStateException("unreachable");
+		}
+	}
+
+}